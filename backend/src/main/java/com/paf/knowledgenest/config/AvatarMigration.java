@@ -0,0 +1,77 @@
+package com.paf.knowledgenest.config;
+
+import com.paf.knowledgenest.model.user.User;
+import com.paf.knowledgenest.service.user.AvatarService;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.stream.Stream;
+
+// Moves Base64 profile pictures that used to be stored in user documents into the avatar
+// store and replaces them with the content hash. Pictures that do not decode to a supported
+// image never rendered and are dropped. Does nothing once no user carries profilePic.
+@Slf4j
+@Component
+public class AvatarMigration implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+    private final AvatarService avatarService;
+
+    public AvatarMigration(MongoTemplate mongoTemplate, AvatarService avatarService) {
+        this.mongoTemplate = mongoTemplate;
+        this.avatarService = avatarService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query legacy = new BasicQuery(new Document("profilePic", new Document("$exists", true)));
+        legacy.fields().include("profilePic");
+        if (!mongoTemplate.exists(legacy, User.class)) {
+            return;
+        }
+
+        long moved = 0;
+        long dropped = 0;
+        try (Stream<Document> users = mongoTemplate.stream(legacy, Document.class, mongoTemplate.getCollectionName(User.class))) {
+            for (Document user : (Iterable<Document>) users::iterator) {
+                Object encoded = user.get("profilePic");
+                // Only touch the document if the picture is still the one we read
+                Query unchanged = Query.query(Criteria.where("_id").is(user.get("_id")).and("profilePic").is(encoded));
+
+                String hash = null;
+                try {
+                    if (encoded instanceof String text && !text.isBlank()) {
+                        hash = avatarService.store(decode(text));
+                    }
+                } catch (IllegalArgumentException e) {
+                    log.warn("AvatarMigration: dropping unreadable picture of user {}: {}", user.get("_id"), e.getMessage());
+                }
+
+                Update update = new Update().unset("profilePic");
+                if (hash != null) {
+                    update.set("avatarHash", hash);
+                    moved++;
+                } else {
+                    dropped++;
+                }
+                mongoTemplate.updateFirst(unchanged, update, User.class);
+            }
+        }
+        log.info("AvatarMigration: moved {} profile pictures to the avatar store, dropped {}", moved, dropped);
+    }
+
+    // Plain Base64, or a data: URL
+    private static byte[] decode(String text) {
+        int comma = text.startsWith("data:") ? text.indexOf(',') : -1;
+        return Base64.getMimeDecoder().decode(comma >= 0 ? text.substring(comma + 1) : text);
+    }
+}
@@ -0,0 +1,56 @@
+package com.paf.knowledgenest.config;
+
+import com.paf.knowledgenest.model.challenges.ChallengeAttempt;
+import com.paf.knowledgenest.service.challenges.ChallengeStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+// Attempts submitted before challenge stats existed carry no statsRecorded flag, nor do new
+// ones whose claim failed or was never confirmed. Add each of them to its challenge's stats
+// once; claiming per attempt makes the job safe to interrupt, re-run, or run on several
+// instances while new attempts are being submitted. Runs at startup and then on a schedule,
+// so a claim left pending by a failed upsert is counted once it goes stale.
+@Slf4j
+@Component
+public class ChallengeStatsBackfill implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+    private final ChallengeStatsService challengeStatsService;
+
+    public ChallengeStatsBackfill(MongoTemplate mongoTemplate, ChallengeStatsService challengeStatsService) {
+        this.mongoTemplate = mongoTemplate;
+        this.challengeStatsService = challengeStatsService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        recordUncounted();
+    }
+
+    @Scheduled(fixedDelayString = "${challenges.stats.backfill-ms:600000}",
+               initialDelayString = "${challenges.stats.backfill-ms:600000}")
+    public void recordUncounted() {
+        Query legacy = Query.query(challengeStatsService.claimable());
+        if (!mongoTemplate.exists(legacy, ChallengeAttempt.class)) {
+            return;
+        }
+
+        legacy.fields().include("challengeId").include("score").include("submittedInTime");
+        long recorded = 0;
+        try (Stream<ChallengeAttempt> attempts = mongoTemplate.stream(legacy, ChallengeAttempt.class)) {
+            for (ChallengeAttempt attempt : (Iterable<ChallengeAttempt>) attempts::iterator) {
+                if (challengeStatsService.claimAndRecord(attempt)) {
+                    recorded++;
+                }
+            }
+        }
+        log.info("ChallengeStatsBackfill: added {} uncounted attempts to challenge stats", recorded);
+    }
+}
@@ -0,0 +1,145 @@
+package com.paf.knowledgenest.config;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.paf.knowledgenest.model.coins.CoinLedgerEntry;
+import com.paf.knowledgenest.model.user.User;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Balances earned before the coin ledger existed have no entries behind them, and the ledger
+// reconciliation would wipe them. Record each one once as an OPENING_BALANCE entry.
+// Runs on every start: the opening entry's key is derived from the user id, so a user who
+// already has one adds nothing. Each user's opening is their balance minus the ledger sum read
+// right after it, so awards recorded while the pass runs are not counted twice. A user whose
+// last award is younger than coins.backfill.settle-ms may still have its $inc in flight; they
+// are read again once it has settled.
+@Slf4j
+@Component
+public class CoinLedgerBackfill implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int SETTLE_ROUNDS = 5;
+
+    private final MongoTemplate mongoTemplate;
+    private final long settleMillis;
+
+    public CoinLedgerBackfill(
+            MongoTemplate mongoTemplate,
+            @Value("${coins.backfill.settle-ms:5000}") long settleMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.settleMillis = settleMillis;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query withCoins = Query.query(Criteria.where("userCoins").gt(0));
+        withCoins.fields().include("userCoins");
+
+        List<User> batch = new ArrayList<>(BATCH_SIZE);
+        Set<String> unsettled = new HashSet<>();
+        long seeded = 0;
+        try (Stream<User> users = mongoTemplate.stream(withCoins, User.class)) {
+            for (User user : (Iterable<User>) users::iterator) {
+                batch.add(user);
+                if (batch.size() == BATCH_SIZE) {
+                    seeded += seed(batch, unsettled);
+                    batch.clear();
+                }
+            }
+        }
+        seeded += seed(batch, unsettled);
+
+        for (int round = 0; round < SETTLE_ROUNDS && !unsettled.isEmpty(); round++) {
+            try {
+                Thread.sleep(settleMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            Query again = Query.query(Criteria.where("_id").in(unsettled).and("userCoins").gt(0));
+            again.fields().include("userCoins");
+            List<User> users = mongoTemplate.find(again, User.class);
+            unsettled.clear();
+            seeded += seed(users, unsettled);
+        }
+        if (!unsettled.isEmpty()) {
+            log.warn("CoinLedgerBackfill: {} users kept receiving awards, left for the next start", unsettled.size());
+        }
+        log.info("CoinLedgerBackfill: recorded opening balances for {} users", seeded);
+    }
+
+    // Adds the users with an award still settling to unsettled instead of seeding them
+    private long seed(List<User> users, Set<String> unsettled) {
+        if (users.isEmpty()) {
+            return 0;
+        }
+        // Read after the balances, so an award the balance already includes is in the sum too
+        Aggregation perUser = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("userId").in(users.stream().map(User::getId).toList())),
+                Aggregation.group("userId").sum("points").as("points").max("createdAt").as("lastAwardAt"));
+        Map<String, Document> recorded = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(perUser, CoinLedgerEntry.class, Document.class)) {
+            recorded.put(row.get("_id").toString(), row);
+        }
+
+        Date settledBefore = new Date(System.currentTimeMillis() - settleMillis);
+        LocalDateTime now = LocalDateTime.now();
+        List<CoinLedgerEntry> entries = new ArrayList<>();
+        for (User user : users) {
+            Document ledger = recorded.get(user.getId());
+            int opening = user.getUserCoins();
+            if (ledger != null) {
+                if (ledger.getDate("lastAwardAt").after(settledBefore)) {
+                    unsettled.add(user.getId());
+                    continue;
+                }
+                opening -= ((Number) ledger.get("points")).intValue();
+            }
+            if (opening != 0) {
+                entries.add(new CoinLedgerEntry(CoinLedgerEntry.OPENING_BALANCE + ":" + user.getId(),
+                        user.getId(), CoinLedgerEntry.OPENING_BALANCE, opening, now));
+            }
+        }
+        return insert(entries);
+    }
+
+    private long insert(List<CoinLedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        try {
+            return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CoinLedgerEntry.class)
+                    .insert(entries)
+                    .execute()
+                    .getInsertedCount();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+            return e.getResult().getInsertedCount();
+        }
+    }
+}
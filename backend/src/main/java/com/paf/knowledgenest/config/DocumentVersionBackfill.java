@@ -0,0 +1,44 @@
+package com.paf.knowledgenest.config;
+
+import com.paf.knowledgenest.model.challenges.Challenge;
+import com.paf.knowledgenest.model.skillpost.SkillPost;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Documents written before @Version was added have no version field, and Spring Data
+// treats a null version as a new entity (insert -> duplicate key). Seed them with 0 once.
+@Slf4j
+@Component
+public class DocumentVersionBackfill implements ApplicationRunner {
+
+    private static final List<Class<?>> VERSIONED_TYPES = List.of(SkillPost.class, Challenge.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    public DocumentVersionBackfill(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (Class<?> type : VERSIONED_TYPES) {
+            long updated = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("version").exists(false)),
+                    new Update().set("version", 0L),
+                    type
+            ).getModifiedCount();
+
+            if (updated > 0) {
+                log.info("DocumentVersionBackfill: seeded version on {} {} documents", updated, type.getSimpleName());
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.paf.knowledgenest.config;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.paf.knowledgenest.model.socialFeature.Follow;
+import com.paf.knowledgenest.model.user.User;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Moves the followers/following lists that used to be embedded in user documents into the
+// follows edge collection, recounts followerCount/followingCount from the edges and unsets
+// the old lists. Does nothing once no user document carries the lists any more.
+// Runs after MongoIndexConfig, which creates the unique edge index it relies on.
+@Slf4j
+@Component
+public class FollowGraphMigration implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public FollowGraphMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query legacy = new BasicQuery(new Document("$or", List.of(
+                new Document("followers", new Document("$exists", true)),
+                new Document("following", new Document("$exists", true)))));
+        legacy.fields().include("followers").include("following");
+
+        if (!mongoTemplate.exists(legacy, User.class)) {
+            return;
+        }
+
+        List<Follow> batch = new ArrayList<>(BATCH_SIZE);
+        long edges = 0;
+        try (Stream<Document> users = mongoTemplate.stream(legacy, Document.class, mongoTemplate.getCollectionName(User.class))) {
+            for (Document user : (Iterable<Document>) users::iterator) {
+                String userId = user.get("_id").toString();
+                for (String followeeId : user.getList("following", String.class, List.of())) {
+                    batch.add(new Follow(userId, followeeId));
+                }
+                // Both sides normally list the same edge; the unique index drops the repeat
+                for (String followerId : user.getList("followers", String.class, List.of())) {
+                    batch.add(new Follow(followerId, userId));
+                }
+                if (batch.size() >= BATCH_SIZE) {
+                    edges += insertEdges(batch);
+                    batch.clear();
+                }
+            }
+        }
+        edges += insertEdges(batch);
+
+        recount("followeeId", "followerCount");
+        recount("followerId", "followingCount");
+
+        long migrated = mongoTemplate.updateMulti(legacy, new Update().unset("followers").unset("following"), User.class)
+                .getModifiedCount();
+        log.info("FollowGraphMigration: moved {} edges out of {} user documents", edges, migrated);
+    }
+
+    private long insertEdges(List<Follow> edges) {
+        if (edges.isEmpty()) {
+            return 0;
+        }
+        try {
+            return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Follow.class)
+                    .insert(edges)
+                    .execute()
+                    .getInsertedCount();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+            return e.getResult().getInsertedCount();
+        }
+    }
+
+    // Overwrites one count on every user from the edges, so reruns cannot double count
+    private void recount(String groupField, String countField) {
+        Aggregation perUser = Aggregation.newAggregation(
+                Aggregation.group(groupField).count().as("count"));
+
+        BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        int pending = 0;
+        for (Document row : mongoTemplate.aggregate(perUser, Follow.class, Document.class)) {
+            updates.updateOne(Query.query(Criteria.where("_id").is(row.get("_id"))),
+                    new Update().set(countField, ((Number) row.get("count")).longValue()));
+            if (++pending == BATCH_SIZE) {
+                updates.execute();
+                updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            updates.execute();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.paf.knowledgenest.config;
+
+import com.paf.knowledgenest.model.ParkedWrite;
+import com.paf.knowledgenest.model.challenges.Challenge;
+import com.paf.knowledgenest.model.challenges.ChallengeAttempt;
+import com.paf.knowledgenest.model.coins.CoinLedgerEntry;
+import com.paf.knowledgenest.model.notification.Notification;
+import com.paf.knowledgenest.model.notification.NotificationKey;
+import com.paf.knowledgenest.model.socialFeature.Follow;
+import com.paf.knowledgenest.model.user.User;
+import com.paf.knowledgenest.model.user.UserDeletionJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Boot leaves auto-index-creation off, so the @Indexed/@CompoundIndex declarations on
+// these documents are applied here at startup (ensureIndex is a no-op when they exist).
+// Runs first so migrations can rely on unique indexes.
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MongoIndexConfig implements ApplicationRunner {
+
+    private static final List<Class<?>> INDEXED_TYPES = List.of(
+            Notification.class,
+            NotificationKey.class,
+            Follow.class,
+            CoinLedgerEntry.class,
+            User.class,
+            UserDeletionJob.class,
+            Challenge.class,
+            ChallengeAttempt.class,
+            ParkedWrite.class
+    );
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexConfig(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> type : INDEXED_TYPES) {
+            IndexOperations indexOps = mongoTemplate.indexOps(type);
+            resolver.resolveIndexFor(type).forEach(indexOps::ensureIndex);
+            log.info("MongoIndexConfig: ensured indexes for {}", type.getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.paf.knowledgenest.config;
+
+import com.paf.knowledgenest.model.notification.Notification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+// Notifications written before lastActivityAt existed sort after everything else in the
+// paged list. Copy their createdAt over once; a single pipeline update, safe to re-run.
+@Slf4j
+@Component
+public class NotificationActivityBackfill implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+
+    public NotificationActivityBackfill(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long updated = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("lastActivityAt").exists(false)),
+                AggregationUpdate.update().set("lastActivityAt").toValueOf("$createdAt"),
+                Notification.class
+        ).getModifiedCount();
+        if (updated > 0) {
+            log.info("NotificationActivityBackfill: set lastActivityAt on {} notifications", updated);
+        }
+    }
+}
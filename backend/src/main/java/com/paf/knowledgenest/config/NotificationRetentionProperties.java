@@ -0,0 +1,42 @@
+package com.paf.knowledgenest.config;
+
+import com.paf.knowledgenest.model.notification.Notification;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+// notifications.retention.* - how long read notifications live and when unread ones are archived
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "notifications.retention")
+public class NotificationRetentionProperties {
+
+    // Lifetime of a notification after it has been read, per type
+    private Map<Notification.NotificationType, Duration> readTtl = new EnumMap<>(Map.of(
+            Notification.NotificationType.LIKE, Duration.ofDays(14),
+            Notification.NotificationType.FOLLOW, Duration.ofDays(14),
+            Notification.NotificationType.UNFOLLOW, Duration.ofDays(7),
+            Notification.NotificationType.COMMENT, Duration.ofDays(30),
+            Notification.NotificationType.COMMENT_REPLY, Duration.ofDays(30),
+            Notification.NotificationType.SYSTEM_NOTIFICATION, Duration.ofDays(60)
+    ));
+
+    // Used for types missing from readTtl
+    private Duration defaultReadTtl = Duration.ofDays(30);
+
+    // Move old unread notifications to the archive collection
+    private boolean archiveEnabled = false;
+    private Duration archiveAfter = Duration.ofDays(90);
+    private int archiveBatchSize = 1000;
+    private int archiveMaxBatchesPerRun = 50;
+
+    public Duration ttlFor(Notification.NotificationType type) {
+        return type == null ? defaultReadTtl : readTtl.getOrDefault(type, defaultReadTtl);
+    }
+}
@@ -8,6 +8,7 @@ import com.paf.knowledgenest.service.user.CustomUserDetailsService;
 import com.paf.knowledgenest.service.user.OAuth2SuccessHandler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.*;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -45,6 +46,8 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/challenges/**").permitAll()
+                        // Avatars are loaded by <img> tags, which send no bearer token
+                        .requestMatchers(HttpMethod.GET, "/api/user/*/avatar").permitAll()
                         .requestMatchers("/api/skill-posts/**").authenticated()
                         .requestMatchers("/oauth2/**", "/login/oauth2/**").permitAll()
                         .anyRequest().authenticated()
@@ -1,9 +1,12 @@
 package com.paf.knowledgenest.controller.challenges;
 
+import com.paf.knowledgenest.dto.responses.ChallengeLeaderboardEntry;
 import com.paf.knowledgenest.enums.CoinType;
+import com.paf.knowledgenest.exception.ResourceNotFoundException;
 import com.paf.knowledgenest.model.challenges.ChallengeAttempt;
 import com.paf.knowledgenest.service.challenges.ChallengeAttemptService;
 import com.paf.knowledgenest.service.socialFeature.SocialService;
+import com.paf.knowledgenest.utils.ApiResponse;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -18,19 +21,23 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ChallengeAttemptController {
 
+    private static final int MAX_LEADERBOARD_PAGE = 100;
+
     private final ChallengeAttemptService attemptService;
     private final SocialService socialService;
 
     @PostMapping("/submit")
     public ChallengeAttempt submitChallenge(@RequestBody ChallengeSubmitRequest request) {
-        socialService.addUserCoins(request.userId, CoinType.CHALLENGE_ATTEMPT);
-
-        return attemptService.submitChallenge(
+        ChallengeAttempt attempt = attemptService.submitChallenge(
                 request.getChallengeId(),
                 request.getUserId(),
                 request.getAnswers(),
                 request.getStartedAt()
         );
+
+        // Rewarded once per recorded attempt
+        socialService.addUserCoins(request.getUserId(), CoinType.CHALLENGE_ATTEMPT, attempt.getId());
+        return attempt;
     }
 
     // GET /user/{userId} — all attempts by a specific user
@@ -45,6 +52,28 @@ public class ChallengeAttemptController {
         return attemptService.getAttemptsByChallenge(challengeId);
     }
 
+    // GET /leaderboard/{challengeId} — participants by score, then by completion time
+    @GetMapping("/leaderboard/{challengeId}")
+    public ResponseEntity<ApiResponse<List<ChallengeLeaderboardEntry>>> getLeaderboard(
+            @PathVariable String challengeId,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit) {
+        List<ChallengeLeaderboardEntry> entries = attemptService.getLeaderboard(
+                challengeId, Math.max(0, offset), Math.min(Math.max(limit, 1), MAX_LEADERBOARD_PAGE));
+        return ResponseEntity.ok(ApiResponse.successResponse("Leaderboard fetched successfully", entries));
+    }
+
+    // GET /leaderboard/{challengeId}/rank/{userId} — the user's own place
+    @GetMapping("/leaderboard/{challengeId}/rank/{userId}")
+    public ResponseEntity<ApiResponse<ChallengeLeaderboardEntry>> getLeaderboardRank(
+            @PathVariable String challengeId, @PathVariable String userId) {
+        ChallengeLeaderboardEntry entry = attemptService.getLeaderboardRank(challengeId, userId);
+        if (entry == null) {
+            throw new ResourceNotFoundException("User has not attempted this challenge");
+        }
+        return ResponseEntity.ok(ApiResponse.successResponse("Rank fetched successfully", entry));
+    }
+
     // DTO for submission
     @Data
     public static class ChallengeSubmitRequest {
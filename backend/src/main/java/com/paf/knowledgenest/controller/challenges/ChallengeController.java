@@ -1,5 +1,6 @@
 package com.paf.knowledgenest.controller.challenges;
 
+import com.paf.knowledgenest.dto.responses.ChallengeCatalogPage;
 import com.paf.knowledgenest.model.challenges.Challenge;
 import com.paf.knowledgenest.service.challenges.ChallengeService;
 import com.paf.knowledgenest.utils.ApiResponse;
@@ -25,12 +26,24 @@ public class ChallengeController {
         return ResponseEntity.status(saved.isSuccess() ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST).body(saved);
     }
 
-    // Get all challenges
+    // Get all challenges; kept complete for older clients, new ones page through /catalog
+    @Deprecated
     @GetMapping
     public ResponseEntity<List<Challenge>> getAllChallenges() {
         return ResponseEntity.ok(challengeService.getAllChallenges());
     }
 
+    // Paged catalog; category, difficulty and active are optional filters
+    @GetMapping("/catalog")
+    public ResponseEntity<ChallengeCatalogPage> getCatalog(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String difficulty,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(challengeService.getCatalog(blankToNull(category), blankToNull(difficulty), active, page, size));
+    }
+
     // Get challenge by ID
     @GetMapping("/{id}")
     public ResponseEntity<Challenge> getChallengeById(@PathVariable String id) {
@@ -38,7 +51,8 @@ public class ChallengeController {
         return challenge.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
-    // Get challenges by skill category
+    // Get challenges by skill category; kept complete for older clients, /catalog?category= pages
+    @Deprecated
     @GetMapping("/category/{category}")
     public ResponseEntity<List<Challenge>> getChallengesByCategory(@PathVariable String category) {
         return ResponseEntity.ok(challengeService.getChallengesByCategory(category));
@@ -81,4 +95,8 @@ public class ChallengeController {
         return challengeService.toggleChallengeStatus(id);
     }
 
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
 }
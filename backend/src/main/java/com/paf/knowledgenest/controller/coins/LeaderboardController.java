@@ -0,0 +1,81 @@
+package com.paf.knowledgenest.controller.coins;
+
+import com.paf.knowledgenest.dto.responses.LeaderboardEntryResponse;
+import com.paf.knowledgenest.exception.ResourceNotFoundException;
+import com.paf.knowledgenest.service.coins.CoinLeaderboardService;
+import com.paf.knowledgenest.service.coins.CoinLeaderboardService.Period;
+import com.paf.knowledgenest.utils.ApiResponse;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/leaderboard")
+public class LeaderboardController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_RADIUS = 25;
+
+    private final CoinLeaderboardService leaderboardService;
+
+    public LeaderboardController(CoinLeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+    }
+
+    // period is "global" (all-time balance) or "weekly" (coins earned since Monday)
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<LeaderboardEntryResponse>>> top(
+            @RequestParam(defaultValue = "global") String period,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit) {
+        Period board = parsePeriod(period);
+        if (board == null) {
+            return ResponseEntity.badRequest().body(ApiResponse.errorResponse("Unknown leaderboard period: " + period));
+        }
+        List<LeaderboardEntryResponse> entries = leaderboardService.top(
+                board, Math.max(0, offset), Math.min(Math.max(limit, 1), MAX_PAGE_SIZE));
+        return ResponseEntity.ok(ApiResponse.successResponse("Leaderboard fetched successfully", entries));
+    }
+
+    @GetMapping("/rank/{userId}")
+    public ResponseEntity<ApiResponse<LeaderboardEntryResponse>> rankOf(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "global") String period) {
+        Period board = parsePeriod(period);
+        if (board == null) {
+            return ResponseEntity.badRequest().body(ApiResponse.errorResponse("Unknown leaderboard period: " + period));
+        }
+        LeaderboardEntryResponse entry = leaderboardService.rankOf(board, userId);
+        if (entry == null) {
+            throw new ResourceNotFoundException("User has no coins on this leaderboard");
+        }
+        return ResponseEntity.ok(ApiResponse.successResponse("Rank fetched successfully", entry));
+    }
+
+    @GetMapping("/around/{userId}")
+    public ResponseEntity<ApiResponse<List<LeaderboardEntryResponse>>> around(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "global") String period,
+            @RequestParam(defaultValue = "5") int radius) {
+        Period board = parsePeriod(period);
+        if (board == null) {
+            return ResponseEntity.badRequest().body(ApiResponse.errorResponse("Unknown leaderboard period: " + period));
+        }
+        List<LeaderboardEntryResponse> entries = leaderboardService.around(
+                board, userId, Math.min(Math.max(radius, 0), MAX_RADIUS));
+        if (entries.isEmpty()) {
+            throw new ResourceNotFoundException("User has no coins on this leaderboard");
+        }
+        return ResponseEntity.ok(ApiResponse.successResponse("Leaderboard fetched successfully", entries));
+    }
+
+    private static Period parsePeriod(String period) {
+        try {
+            return Period.valueOf(period.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
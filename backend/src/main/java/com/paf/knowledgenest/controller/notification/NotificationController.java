@@ -2,7 +2,9 @@ package com.paf.knowledgenest.controller.notification;
 
 import com.paf.knowledgenest.dto.notification.NotificationDto;
 import com.paf.knowledgenest.model.user.User;
+import com.paf.knowledgenest.security.JwtUtils;
 import com.paf.knowledgenest.service.notification.NotificationService;
+import com.paf.knowledgenest.service.notification.NotificationStreamService;
 import com.paf.knowledgenest.service.user.AuthService;
 import com.paf.knowledgenest.utils.ApiResponse;
 import org.springframework.data.domain.Page;
@@ -10,11 +12,15 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -25,12 +31,19 @@ import java.util.Optional;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationStreamService notificationStreamService;
     private final AuthService authService;
+    private final JwtUtils jwtUtils;
     
     // Explicit constructor injection instead of using Lombok
-    public NotificationController(NotificationService notificationService, AuthService authService) {
+    public NotificationController(NotificationService notificationService,
+                                  NotificationStreamService notificationStreamService,
+                                  AuthService authService,
+                                  JwtUtils jwtUtils) {
         this.notificationService = notificationService;
+        this.notificationStreamService = notificationStreamService;
         this.authService = authService;
+        this.jwtUtils = jwtUtils;
     }
 
     @GetMapping
@@ -38,7 +51,7 @@ public class NotificationController {
             Authentication authentication,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "lastActivityAt") String sortBy,
             @RequestParam(defaultValue = "desc") String direction) {
         
         try {
@@ -67,10 +80,57 @@ public class NotificationController {
         }
     }
 
+    // Keyset-paginated feed: pass the createdAt and id of the last item as `before` and
+    // `beforeId` to get the next page
+    @GetMapping("/feed")
+    public ResponseEntity<?> getNotificationFeed(
+            Authentication authentication,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(required = false) String beforeId,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        String userId = resolveUserId(authentication);
+        if (userId == null) {
+            return ResponseEntity.badRequest().body(ApiResponse.errorResponse("User not found"));
+        }
+        return ResponseEntity.ok(notificationService.getNotificationsForUser(userId, before, beforeId, limit));
+    }
+
+    // Handshake for /stream: browsers' EventSource cannot send the bearer token, so the client
+    // trades it here for a short-lived token that only opens the stream and passes it as ?token=
+    @PostMapping("/stream/token")
+    public ResponseEntity<ApiResponse<NotificationDto.StreamTokenResponse>> createStreamToken(Authentication authentication) {
+        String token = jwtUtils.generateScopedToken(authentication.getName(), JwtUtils.NOTIFICATION_STREAM_SCOPE);
+        return ResponseEntity.ok(ApiResponse.successResponse("Stream token created",
+                new NotificationDto.StreamTokenResponse(token, jwtUtils.getScopedTokenExpiration())));
+    }
+
+    // Push channel for new notifications and unread counts (replaces polling /count and /unread).
+    // The browser resends Last-Event-ID on its own reconnects; a client opening a fresh stream
+    // with a new token passes the last id it saw as ?lastEventId= instead.
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications(
+            Authentication authentication,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+
+        Optional<User> user = authService.getUserByEmail(authentication.getName());
+        if (user.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        String lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        SseEmitter emitter = notificationStreamService.subscribe(user.get().getId(), lastEventId);
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
     @GetMapping("/unread")
     public ResponseEntity<?> getUnreadNotifications(Authentication authentication) {
         try {
-            String userId = authentication.getName();
+            String userId = resolveUserId(authentication);
             System.out.println("Fetching unread notifications for user: " + userId);
             
             List<NotificationDto.Response> notifications = notificationService.getUnreadNotificationsForUser(userId);
@@ -89,7 +149,8 @@ public class NotificationController {
     @GetMapping("/count")
     public ResponseEntity<?> getUnreadCount(Authentication authentication) {
         try {
-            String userId = authentication.getName();
+            // Counters are keyed by user id, not by the email the token carries
+            String userId = resolveUserId(authentication);
             System.out.println("Fetching unread notification count for user: " + userId);
             
             NotificationDto.CountResponse countResponse = notificationService.getUnreadNotificationCount(userId);
@@ -124,7 +185,7 @@ public class NotificationController {
     @PatchMapping("/read-all")
     public ResponseEntity<ApiResponse> markAllAsRead(Authentication authentication) {
         try {
-            String userId = authentication.getName();
+            String userId = resolveUserId(authentication);
             notificationService.markAllNotificationsAsRead(userId);
             
             ApiResponse response = new ApiResponse();
@@ -136,6 +197,26 @@ public class NotificationController {
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+    // Mark many notifications as read in one call (by ids and/or type and date range)
+    @PatchMapping("/batch/read")
+    public ResponseEntity<ApiResponse<NotificationDto.BatchResponse>> markBatchAsRead(
+            @RequestBody NotificationDto.BatchRequest request,
+            Authentication authentication) {
+        long affected = notificationService.markNotificationsAsRead(resolveUserId(authentication), request);
+        return ResponseEntity.ok(ApiResponse.successResponse(
+                "Notifications marked as read", new NotificationDto.BatchResponse(affected)));
+    }
+
+    // Delete many notifications in one call (by ids and/or type and date range)
+    @DeleteMapping("/batch")
+    public ResponseEntity<ApiResponse<NotificationDto.BatchResponse>> deleteBatch(
+            @RequestBody NotificationDto.BatchRequest request,
+            Authentication authentication) {
+        long affected = notificationService.deleteNotifications(resolveUserId(authentication), request);
+        return ResponseEntity.ok(ApiResponse.successResponse(
+                "Notifications deleted", new NotificationDto.BatchResponse(affected)));
+    }
+
 //delete follow notification-----
     @DeleteMapping("/{id}")
     public ResponseEntity<ApiResponse<Boolean>> deleteNotification(@PathVariable String id) {
@@ -147,4 +228,10 @@ public class NotificationController {
                 : ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
 
     }
-} 
\ No newline at end of file
+
+    private String resolveUserId(Authentication authentication) {
+        return authService.getUserByEmail(authentication.getName())
+                .map(User::getId)
+                .orElse(null);
+    }
+}
@@ -1,21 +1,28 @@
 package com.paf.knowledgenest.controller.socialFeature;
 
+import com.paf.knowledgenest.dto.requests.FollowMembershipRequestDTO;
 import com.paf.knowledgenest.dto.requests.FollowerRequestDTO;
 import com.paf.knowledgenest.dto.requests.ProgressRequestDTO;
+import com.paf.knowledgenest.dto.responses.FollowSuggestionResponse;
+import com.paf.knowledgenest.dto.responses.UserSummary;
 import com.paf.knowledgenest.dto.responses.skillPost.FollowerFollowingDTO;
 import com.paf.knowledgenest.model.notification.Notification;
 import com.paf.knowledgenest.model.user.User;
+import com.paf.knowledgenest.model.user.UserDeletionJob;
 import com.paf.knowledgenest.service.notification.NotificationService;
 import com.paf.knowledgenest.service.socialFeature.SocialService;
 import com.paf.knowledgenest.service.user.AuthService;
 import com.paf.knowledgenest.utils.ApiResponse;
+import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Slf4j
@@ -54,20 +61,37 @@ public class SocialFeatureController {
     }
 
     @GetMapping("/following/{userId}")
-    public ResponseEntity<ApiResponse<List<User>>> getFollowingUsers(@PathVariable String userId) {
+    public ResponseEntity<ApiResponse<List<UserSummary>>> getFollowingUsers(@PathVariable String userId) {
         return ResponseEntity.ok(socialService.getFollowingUsers(userId));
     }
 
 
     @GetMapping("/user/followers/{userId}")
-    public ResponseEntity<ApiResponse<FollowerFollowingDTO>> getFollowerFollowingUsers(@PathVariable String userId) {
+    public ResponseEntity<ApiResponse<FollowerFollowingDTO>> getFollowerFollowingUsers(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
         log.info("getFollowerFollowingUsers called");
-        return ResponseEntity.ok(socialService.getFollowersAndFolowingUsers(userId));
+        return ResponseEntity.ok(socialService.getFollowersAndFolowingUsers(userId, page, size));
     }
 
+    // 202: the account is gone, the rest of the user's data is removed in the background
     @DeleteMapping("/user/{userId}")
-    public ResponseEntity<ApiResponse<Boolean>> deleteUser(@PathVariable String userId) {
-        return ResponseEntity.ok(socialService.deleteUser(userId));
+    public ResponseEntity<ApiResponse<UserDeletionJob>> deleteUser(@PathVariable String userId) {
+        ApiResponse<UserDeletionJob> response = socialService.deleteUser(userId);
+        if (!response.isSuccess()) {
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.accepted().body(response);
+    }
+
+    @GetMapping("/user/{userId}/deletion")
+    public ResponseEntity<ApiResponse<UserDeletionJob>> getDeletionStatus(@PathVariable String userId) {
+        ApiResponse<UserDeletionJob> response = socialService.getDeletionStatus(userId);
+        if (!response.isSuccess()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        return ResponseEntity.ok(response);
     }
 
     @GetMapping("/isFollowing")
@@ -83,4 +107,26 @@ public class SocialFeatureController {
         }
     }
 
+    // People the caller may want to follow, answered from precomputed suggestions
+    @GetMapping("/suggestions")
+    public ResponseEntity<ApiResponse<List<FollowSuggestionResponse>>> getSuggestions(
+            Authentication authentication,
+            @RequestParam(defaultValue = "10") int limit) {
+        Optional<User> user = authService.getUserByEmail(authentication.getName());
+        if (user.isEmpty()) {
+            return ResponseEntity.badRequest().body(ApiResponse.errorResponse("User not found"));
+        }
+        return ResponseEntity.ok(socialService.getSuggestions(user.get().getId(), limit));
+    }
+
+    // Batch form of /isFollowing: maps each of the given user ids to whether followerId follows it
+    @PostMapping("/isFollowing/batch")
+    public ResponseEntity<ApiResponse<Map<String, Boolean>>> isFollowingBatch(
+            @Valid @RequestBody FollowMembershipRequestDTO request) {
+        ApiResponse<Map<String, Boolean>> response = socialService.checkFollowing(request);
+        return response.isSuccess()
+                ? ResponseEntity.ok(response)
+                : ResponseEntity.badRequest().body(response);
+    }
+
 }
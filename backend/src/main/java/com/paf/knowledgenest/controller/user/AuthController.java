@@ -9,8 +9,10 @@ import com.paf.knowledgenest.model.user.User;
 
 import com.paf.knowledgenest.repository.user.UserRepository;
 
+import com.paf.knowledgenest.service.socialFeature.FollowGraphService;
 import com.paf.knowledgenest.service.user.AuthService;
 import com.paf.knowledgenest.utils.ApiResponse;
+import com.paf.knowledgenest.utils.AvatarUrls;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,11 +28,13 @@ public class AuthController {
 
     private final AuthService authService;
     private final UserRepository userRepository;
+    private final FollowGraphService followGraphService;
 
     @Autowired
-    public AuthController(AuthService authService, UserRepository userRepository) {
+    public AuthController(AuthService authService, UserRepository userRepository, FollowGraphService followGraphService) {
         this.authService = authService;
         this.userRepository = userRepository;
+        this.followGraphService = followGraphService;
     }
 
     @PostMapping("/register")
@@ -75,9 +79,11 @@ public class AuthController {
                 .id(user.getId())  // Include MongoDB ID 
                 .name(user.getName())
                 .email(user.getEmail())
+                .profilePic(AvatarUrls.urlFor(user.getId(), user.getAvatarHash()))
                 .role("ROLE_" + user.getRole())
-                    .followers(user.getFollowers())
-                    .following(user.getFollowing())
+                    .followerCount(user.getFollowerCount())
+                    .followingCount(user.getFollowingCount())
+                    .following(followGraphService.followeeIds(user.getId()))
                 .build();
                 
         return ResponseEntity.ok(userResponse);
@@ -2,16 +2,28 @@ package com.paf.knowledgenest.controller.user;
 
 import com.paf.knowledgenest.model.user.User;
 import com.paf.knowledgenest.repository.user.UserRepository;
+import com.paf.knowledgenest.service.user.AvatarService;
+import com.paf.knowledgenest.utils.AvatarUrls;
 import io.jsonwebtoken.io.IOException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.Base64;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/user")
@@ -20,6 +32,8 @@ public class UserController {
 
     @Autowired
     private final UserRepository userRepository;
+    private final AvatarService avatarService;
+    private final MongoTemplate mongoTemplate;
 
 
     @PutMapping("/update-name")
@@ -38,13 +52,13 @@ public class UserController {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        // Save file to server or convert to Base64 (for demo, keep simple)
-        byte[] bytes = file.getBytes();
-        String base64Image = Base64.getEncoder().encodeToString(bytes);
-        user.setProfilePic(base64Image);
-        userRepository.save(user);
-
-        return ResponseEntity.ok("Profile picture uploaded successfully");
+        // The bytes go to the avatar store; the user keeps only their hash
+        try {
+            String hash = avatarService.replace(user.getId(), file.getBytes());
+            return ResponseEntity.ok(AvatarUrls.urlFor(user.getId(), hash));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @DeleteMapping("/delete-photo")
@@ -53,11 +67,50 @@ public class UserController {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        user.setProfilePic(null);
-        userRepository.save(user);
+        avatarService.remove(user.getId());
         return ResponseEntity.ok("Profile picture removed");
     }
 
+    // Public so <img> tags can load it. A request carrying the current hash as ?v= gets a
+    // response that never changes and can be cached for good; others revalidate via the ETag.
+    // ?size= picks a resized variant; until it has been generated the original is served
+    // without the long-lived caching, so the browser picks up the variant later.
+    @GetMapping("/{userId}/avatar")
+    public ResponseEntity<Resource> getAvatar(
+            @PathVariable String userId,
+            @RequestParam(name = "v", required = false) String version,
+            @RequestParam(name = "size", required = false) Integer size,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws java.io.IOException {
+        Query query = Query.query(Criteria.where("_id").is(userId));
+        query.fields().include("avatarHash");
+        User user = mongoTemplate.findOne(query, User.class);
+        if (user == null || user.getAvatarHash() == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String hash = user.getAvatarHash();
+        GridFsResource avatar = size == null ? avatarService.open(hash) : avatarService.open(hash, size);
+        if (avatar == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        boolean asRequested = size == null || AvatarService.isVariant(avatar) || avatarService.isOriginalSize(size);
+        String etag = "\"" + avatar.getFilename().replace('/', '-') + "\"";
+        CacheControl cacheControl = hash.equals(version) && asRequested
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                : CacheControl.noCache().cachePublic();
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.parseMediaType(avatar.getContentType()))
+                .contentLength(avatar.contentLength())
+                .body(new InputStreamResource(avatar.getInputStream()));
+    }
+
     @GetMapping("/get-coins/{userId}")
     public ResponseEntity<?> getCoins(@PathVariable String userId) {
         User user = userRepository.findById(userId).orElseThrow(() -> new UsernameNotFoundException("User not found"));
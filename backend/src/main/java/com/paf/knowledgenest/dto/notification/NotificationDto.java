@@ -25,7 +25,10 @@ public class NotificationDto {
         private String resourceType;
         private boolean read;
         private LocalDateTime createdAt;
+        private LocalDateTime lastActivityAt;
         private String commentId;
+        private int actorCount;
+        private List<Notification.ActorRef> sampleActors;
         
         public static Response fromNotification(Notification notification) {
             Response response = new Response();
@@ -39,10 +42,30 @@ public class NotificationDto {
             response.setResourceType(notification.getResourceType());
             response.setRead(notification.isRead());
             response.setCreatedAt(notification.getCreatedAt());
+            response.setLastActivityAt(notification.getLastActivityAt() != null
+                    ? notification.getLastActivityAt() : notification.getCreatedAt());
             response.setCommentId(notification.getCommentId());
+            response.setActorCount(Math.max(1, notification.getActorCount()));
+            response.setSampleActors(notification.getSampleActors());
             return response;
         }
         
+        // Anything at or before the user's read watermark is shown as read
+        public static Response fromNotification(Notification notification, LocalDateTime lastReadAt) {
+            Response response = fromNotification(notification);
+            if (lastReadAt != null && notification.getCreatedAt() != null
+                    && !notification.getCreatedAt().isAfter(lastReadAt)) {
+                response.setRead(true);
+            }
+            return response;
+        }
+
+        public static List<Response> fromNotifications(List<Notification> notifications, LocalDateTime lastReadAt) {
+            return notifications.stream()
+                .map(notification -> fromNotification(notification, lastReadAt))
+                .collect(Collectors.toList());
+        }
+        
         public static List<Response> fromNotifications(List<Notification> notifications) {
             return notifications.stream()
                 .map(Response::fromNotification)
@@ -50,6 +73,29 @@ public class NotificationDto {
         }
     }
     
+    // Selects notifications for a batch operation: explicit ids and/or a type and createdAt range.
+    // Always applied within the caller's own notifications.
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchRequest {
+        private List<String> ids;
+        private Notification.NotificationType type;
+        private LocalDateTime from;
+        private LocalDateTime to;
+
+        public boolean hasSelector() {
+            return (ids != null && !ids.isEmpty()) || type != null || from != null || to != null;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchResponse {
+        private long affected;
+    }
+
     // Using Lombok to avoid manual constructor duplication
     @Data
     @NoArgsConstructor
@@ -57,4 +103,12 @@ public class NotificationDto {
     public static class CountResponse {
         private long unreadCount;
     }
-} 
\ No newline at end of file
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StreamTokenResponse {
+        private String token;
+        private long expiresInMs;
+    }
+}
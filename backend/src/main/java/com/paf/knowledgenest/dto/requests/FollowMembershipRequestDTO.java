@@ -0,0 +1,22 @@
+package com.paf.knowledgenest.dto.requests;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FollowMembershipRequestDTO {
+    @NotBlank(message = "Follower id is required")
+    private String followerId;
+
+    @NotNull(message = "User ids are required")
+    @Size(max = 500, message = "At most 500 user ids can be checked at once")
+    private List<String> userIds;
+}
@@ -0,0 +1,22 @@
+package com.paf.knowledgenest.dto.responses;
+
+import com.paf.knowledgenest.model.challenges.Challenge;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChallengeCatalogPage {
+    private List<Challenge> items;
+    private int page;
+    private int size;
+    // Challenges matching the filters across all pages
+    private long total;
+    private boolean hasNext;
+}
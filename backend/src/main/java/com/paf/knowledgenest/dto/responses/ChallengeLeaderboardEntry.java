@@ -0,0 +1,22 @@
+package com.paf.knowledgenest.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChallengeLeaderboardEntry {
+    // 1-based; equal scores are ordered by completion time, then by user id
+    private int rank;
+    private String userId;
+    private String name;
+    private String username;
+    private String profilePic;
+    private int score;
+    // submittedAt - startedAt of the user's best attempt
+    private long durationMillis;
+}
@@ -0,0 +1,23 @@
+package com.paf.knowledgenest.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FollowSuggestionResponse {
+    private String userId;
+    private String name;
+    private String username;
+    private String profilePic;
+    // How many of the people you follow already follow this user
+    private int mutualCount;
+    // Tags this user posts about that you post about too
+    private List<String> sharedTags;
+}
@@ -0,0 +1,20 @@
+package com.paf.knowledgenest.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardEntryResponse {
+    // 1-based; tied balances are ordered by user id
+    private int rank;
+    private String userId;
+    private String name;
+    private String username;
+    private String profilePic;
+    private long coins;
+}
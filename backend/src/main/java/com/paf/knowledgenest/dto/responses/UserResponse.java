@@ -16,7 +16,11 @@ public class UserResponse {
     private String email;
     private String name;
     private String role;
-    private List<String> followers;
+    // Avatar URL, null when the user has no picture
+    private String profilePic;
+    private long followerCount;
+    private long followingCount;
+    // Ids the user follows, for follow/unfollow buttons
     private List<String> following;
     private Integer userCoins;
 }
@@ -0,0 +1,21 @@
+package com.paf.knowledgenest.dto.responses;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.paf.knowledgenest.utils.AvatarUrls;
+import lombok.Value;
+
+// The public face of a user in lists. Repository methods return this type directly, so Mongo
+// only reads these fields and credentials or counters never leave the database.
+@Value
+public class UserSummary {
+    String id;
+    String name;
+    String username;
+    String email;
+    @JsonIgnore
+    String avatarHash;
+
+    public String getProfilePic() {
+        return AvatarUrls.urlFor(id, avatarHash);
+    }
+}
@@ -8,4 +8,6 @@ import java.util.List;
 public class FollowerFollowingDTO {
     private List<UserFollowResponse> followers;
     private List<UserFollowResponse> followings;
+    private int followerCount;
+    private int followingCount;
 }
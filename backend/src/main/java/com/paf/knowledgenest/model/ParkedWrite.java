@@ -0,0 +1,36 @@
+package com.paf.knowledgenest.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// A batch a background writer could not write after its retries. It is kept here, in the
+// writer's own document form, until the writer replays it successfully.
+@Data
+@NoArgsConstructor
+@Document(collection = "parked_writes")
+// Finds the batches of one writer that are due for another attempt
+@CompoundIndex(name = "kind_next_attempt", def = "{'kind': 1, 'nextAttemptAt': 1}")
+public class ParkedWrite {
+
+    @Id
+    private String id;
+
+    // Which writer owns the batch, e.g. "notifications" or "coin-awards"
+    private String kind;
+
+    private List<org.bson.Document> items;
+
+    private int attempts;
+
+    private String lastError;
+
+    private LocalDateTime parkedAt;
+
+    private LocalDateTime nextAttemptAt;
+}
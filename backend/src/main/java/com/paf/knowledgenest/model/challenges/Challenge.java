@@ -1,12 +1,23 @@
 package com.paf.knowledgenest.model.challenges;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.List;
 
 @Data
 @Document(collection = "challenges")
+// Catalog pages, newest (_id) first. An index only returns _id order when every field before
+// it is matched exactly, so each filter combination the challenge list sends (category,
+// difficulty, or both) has its own. The active filter is API-only: alone it has an index,
+// combined with the others it is checked on the documents the category/difficulty index returns.
+@CompoundIndex(name = "category_difficulty", def = "{'skillCategory': 1, 'difficultyLevel': 1, '_id': -1}")
+@CompoundIndex(name = "category", def = "{'skillCategory': 1, '_id': -1}")
+@CompoundIndex(name = "difficulty", def = "{'difficultyLevel': 1, '_id': -1}")
+@CompoundIndex(name = "active", def = "{'isActive': 1, '_id': -1}")
 public class Challenge {
 
     @Id
@@ -18,4 +29,14 @@ public class Challenge {
     private List<String> tasks; // List of 5 questions/tasks
     private int timeLimit; // Time in minutes
     private boolean isActive; // Challenge status (active or blocked)
+
+    // How answers are graded: KEYWORD (default), REGEX or FUZZY
+    private String scoringStrategy;
+    // One per task, in the strategy's format; never sent to clients
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private List<String> answerKeys;
+
+    // Bumped on every save; compiled scorers are cached per version
+    @Version
+    private Long version;
 }
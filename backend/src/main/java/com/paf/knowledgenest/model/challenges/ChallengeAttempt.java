@@ -2,6 +2,8 @@ package com.paf.knowledgenest.model.challenges;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -12,6 +14,8 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+// Challenge leaderboards are loaded by walking this index
+@CompoundIndex(name = "challenge_score_duration", def = "{'challengeId': 1, 'score': -1, 'durationMillis': 1}")
 public class ChallengeAttempt {
     @Id
     private String id;
@@ -25,4 +29,13 @@ public class ChallengeAttempt {
     private boolean submittedInTime;
     private LocalDateTime startedAt;
     private LocalDateTime submittedAt;
+    // submittedAt - startedAt; null on attempts saved before it was recorded
+    private Long durationMillis;
+
+    // Missing until the attempt has been added to its challenge's stats, true once it has,
+    // false once taken back out for deletion
+    @Indexed(name = "stats_recorded")
+    private Boolean statsRecorded;
+    // When the attempt was claimed for the stats; cleared once the claim is confirmed
+    private LocalDateTime statsClaimedAt;
 }
@@ -0,0 +1,37 @@
+package com.paf.knowledgenest.model.challenges;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Running totals over a challenge's attempts, updated with $inc/$max as each attempt is
+// recorded, so the report is one document read however many attempts there are.
+@Data
+@NoArgsConstructor
+@Document(collection = "challenge_stats")
+public class ChallengeStats {
+
+    // The challenge's id; one document per challenge
+    @Id
+    private String challengeId;
+
+    private long attempts;
+
+    private long scoreSum;
+
+    // Highest score ever recorded; not lowered when attempts are deleted
+    private int maxScore;
+
+    // Attempts submitted within the time limit
+    private long onTime;
+
+    // Number of attempts per score, keyed by the score as a string
+    private Map<String, Long> histogram = new LinkedHashMap<>();
+
+    private LocalDateTime updatedAt;
+}
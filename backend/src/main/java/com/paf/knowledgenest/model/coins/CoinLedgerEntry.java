@@ -0,0 +1,38 @@
+package com.paf.knowledgenest.model.coins;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// One coin award. Entries are only ever inserted; a user's balance is the sum of their entries.
+// The idempotency key is the _id, so the same award can never be recorded twice.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "coin_ledger")
+@CompoundIndex(name = "user_created", def = "{'userId': 1, 'createdAt': -1}")
+public class CoinLedgerEntry {
+
+    // Reason recorded for balances that existed before the ledger
+    public static final String OPENING_BALANCE = "OPENING_BALANCE";
+
+    @Id
+    private String idempotencyKey;
+
+    private String userId;
+
+    // CoinType name, or OPENING_BALANCE
+    private String reason;
+
+    private int points;
+
+    // The weekly leaderboard sums entries from the start of the week
+    @Indexed(name = "created_at")
+    private LocalDateTime createdAt;
+}
@@ -2,12 +2,24 @@ package com.paf.knowledgenest.model.notification;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @Document(collection = "notifications")
+// Unread = read:false and createdAt newer than the user's lastReadAt watermark
+@CompoundIndex(name = "user_read_created", def = "{'userId': 1, 'read': 1, 'createdAt': -1}")
+// Keyset feed and stream replay, with _id breaking createdAt ties
+@CompoundIndex(name = "user_created_id", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
+// Most recently active first, for the paged list where coalesced groups move up
+@CompoundIndex(name = "user_last_activity", def = "{'userId': 1, 'lastActivityAt': -1}")
+// Archiving: oldest notifications that never got an expiry, without sorting them in memory
+@CompoundIndex(name = "expire_created", def = "{'expireAt': 1, 'createdAt': 1}")
 public class Notification {
     
     @Id
@@ -28,7 +40,14 @@ public class Notification {
 
     // Status
     private boolean read = false;
+    // Never changes once written, so keyset cursors over it stay stable
     private LocalDateTime createdAt;
+    // createdAt, or for a coalesced group the time its latest actor joined
+    private LocalDateTime lastActivityAt;
+
+    // Set once the notification is read (readAt + per-type TTL); the TTL index deletes it then
+    @Indexed(name = "expire_at_ttl", expireAfter = "0s")
+    private LocalDateTime expireAt;
     
 
     //-----------------------------------------------
@@ -39,6 +58,34 @@ public class Notification {
 
     // Optional specific data
     private String commentId;
+    // Opening words of that comment, captured when the notification is created so rendering
+    // never has to load the post's comments
+    private String commentExcerpt;
+
+    //-----------------------------------------------
+
+    // Coalescing: one document stands for every actor of the same type on the same resource
+    // within the window. actorId/actorName above hold the most recent actor.
+    private int actorCount = 1;
+    private List<ActorRef> sampleActors = new ArrayList<>();
+    private LocalDateTime firstCreatedAt;
+    // userId|type|resourceId while the group is open. Unique, so concurrent consumers cannot
+    // open two groups for the same key; it is unset when the group closes.
+    @Indexed(name = "open_group_key", unique = true, sparse = true)
+    private String groupKey;
+
+    @Data
+    public static class ActorRef {
+        private String actorId;
+        private String actorName;
+
+        public ActorRef() {}
+
+        public ActorRef(String actorId, String actorName) {
+            this.actorId = actorId;
+            this.actorName = actorName;
+        }
+    }
     
     public enum NotificationType {
         LIKE,
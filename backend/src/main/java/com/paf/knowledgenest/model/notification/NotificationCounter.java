@@ -0,0 +1,30 @@
+package com.paf.knowledgenest.model.notification;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@Document(collection = "notification_counters")
+public class NotificationCounter {
+
+    // Receiver user id
+    @Id
+    private String userId;
+
+    // Number of unread notifications, maintained with $inc
+    private long unread;
+
+    // Bumped on every change so cached copies can tell which value is newer
+    private long revision;
+
+    // Read watermark: anything created at or before this counts as read
+    private LocalDateTime lastReadAt;
+
+    // Watermark up to which notifications have been given an expireAt by the retention job
+    private LocalDateTime expiryStampedAt;
+
+    private LocalDateTime reconciledAt;
+}
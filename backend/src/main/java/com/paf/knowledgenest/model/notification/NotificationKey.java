@@ -0,0 +1,25 @@
+package com.paf.knowledgenest.model.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Claim on a (receiver, actor, type, resource) emission. The key is the _id, so the unique
+// _id index rejects a second claim; the TTL index frees the key once the window has passed.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "notification_keys")
+public class NotificationKey {
+
+    @Id
+    private String key;
+
+    @Indexed(name = "expire_at_ttl", expireAfter = "0s")
+    private LocalDateTime expireAt;
+}
@@ -2,6 +2,7 @@ package com.paf.knowledgenest.model.skillpost;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -28,4 +29,8 @@ public class SkillPost {
     private int likes = 0;
     private Set<String> likedBy = new HashSet<>();
     private List<Comment> comments = new ArrayList<>();
+
+    // Optimistic concurrency: saves fail if another writer bumped this first
+    @Version
+    private Long version;
 } 
\ No newline at end of file
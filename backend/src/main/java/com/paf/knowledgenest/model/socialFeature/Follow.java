@@ -0,0 +1,41 @@
+package com.paf.knowledgenest.model.socialFeature;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// One edge of the social graph: followerId follows followeeId
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "follows")
+@CompoundIndexes({
+        // Uniqueness of the edge; also serves "whom does X follow", newest first
+        @CompoundIndex(name = "follower_followee", def = "{'followerId': 1, 'followeeId': 1}", unique = true),
+        @CompoundIndex(name = "follower_created", def = "{'followerId': 1, 'createdAt': -1}"),
+        // "who follows X", newest first
+        @CompoundIndex(name = "followee_created", def = "{'followeeId': 1, 'createdAt': -1}")
+})
+public class Follow {
+
+    @Id
+    private String id;
+
+    private String followerId;
+
+    private String followeeId;
+
+    private LocalDateTime createdAt;
+
+    public Follow(String followerId, String followeeId) {
+        this.followerId = followerId;
+        this.followeeId = followeeId;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -3,10 +3,10 @@ package com.paf.knowledgenest.model.user;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.IndexDirection;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.List;
-
 @Setter
 @Getter
 @Document(collection = "users")
@@ -25,12 +25,17 @@ public class User {
 
     private String role;
 
-    private String profilePic;
+    // SHA-256 of the profile picture stored by AvatarService; the bytes live in GridFS
+    @Indexed(name = "avatar_hash", sparse = true)
+    private String avatarHash;
 
-    private List<String> followers;
+    // Edges live in the follows collection; these are maintained alongside them with $inc
+    private long followerCount;
 
-    private List<String> following;
+    private long followingCount;
 
+    // Indexed so the coin leaderboard can be rebuilt in rank order
+    @Indexed(name = "user_coins", direction = IndexDirection.DESCENDING)
     private Integer userCoins = 0;
 
 
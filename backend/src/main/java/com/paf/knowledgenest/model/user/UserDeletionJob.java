@@ -0,0 +1,62 @@
+package com.paf.knowledgenest.model.user;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Cleanup of everything a deleted user left behind, run step by step in the background.
+// Progress is saved after every batch so a restarted job carries on where it stopped.
+@Data
+@NoArgsConstructor
+@Document(collection = "user_deletion_jobs")
+// Finds jobs that are due and not leased by a running worker
+@CompoundIndex(name = "status_lease", def = "{'status': 1, 'leaseUntil': 1}")
+public class UserDeletionJob {
+
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+
+    // Run in this order; posts go first so likes and comments on them need no separate cleanup
+    public enum Step { POSTS, LIKES, COMMENTS, NOTIFICATIONS, FOLLOWS, CHALLENGE_ATTEMPTS, COIN_LEDGER, AVATAR }
+
+    // The deleted user's id; one job per user
+    @Id
+    private String userId;
+
+    private Status status;
+
+    // The user's profile picture, read before the user document is deleted
+    private String avatarHash;
+
+    // Step in progress; null once completed
+    private Step step;
+
+    // Documents removed or cleaned so far, by step name
+    private Map<String, Long> processed = new LinkedHashMap<>();
+
+    private int failures;
+
+    private String lastError;
+
+    // A worker owns the job until then; a crashed worker's job is picked up again after it
+    private LocalDateTime leaseUntil;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+
+    public UserDeletionJob(String userId) {
+        this.userId = userId;
+        this.status = Status.PENDING;
+        this.step = Step.values()[0];
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+}
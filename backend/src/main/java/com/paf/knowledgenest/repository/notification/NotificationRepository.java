@@ -11,9 +11,6 @@ import java.util.List;
 @Repository
 public interface NotificationRepository extends MongoRepository<Notification, String> {
     
-    // Find notifications for a specific user
-    List<Notification> findByUserId(String userId);
-    
     // Find notifications with pagination
     Page<Notification> findByUserId(String userId, Pageable pageable);
     
@@ -0,0 +1,19 @@
+package com.paf.knowledgenest.repository.socialFeature;
+
+import com.paf.knowledgenest.model.socialFeature.Follow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface FollowRepository extends MongoRepository<Follow, String> {
+
+    boolean existsByFollowerIdAndFolloweeId(String followerId, String followeeId);
+
+    long deleteByFollowerIdAndFolloweeId(String followerId, String followeeId);
+
+    // Lists rather than Pages: totals come from the denormalized counts on the user
+    List<Follow> findByFolloweeId(String followeeId, Pageable pageable);
+
+    List<Follow> findByFollowerId(String followerId, Pageable pageable);
+}
@@ -1,10 +1,17 @@
 package com.paf.knowledgenest.repository.user;
 
+import com.paf.knowledgenest.dto.responses.UserSummary;
 import com.paf.knowledgenest.model.user.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends MongoRepository<User, String> {
     Optional<User> findByEmail(String email);
     Boolean existsByEmail(String email);
+
+    // Projected to the UserSummary fields; order is not preserved
+    List<UserSummary> findByIdIn(Collection<String> ids);
 }
@@ -43,18 +43,31 @@ public class JwtAuthFilter extends GenericFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             if (jwtUtils.validateToken(token)) {
-                String email = jwtUtils.getEmailFromToken(token);
-                UserDetails userDetails = customUserDetailsService.loadUserByUsername(email);
-
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
-
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(httpReq));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+                authenticate(httpReq, jwtUtils.getEmailFromToken(token));
+            }
+        } else if (isNotificationStream(httpReq)) {
+            // EventSource cannot set headers, so the stream takes a short-lived token in the query instead
+            String token = httpReq.getParameter("token");
+            if (token != null && jwtUtils.validateScopedToken(token, JwtUtils.NOTIFICATION_STREAM_SCOPE)) {
+                authenticate(httpReq, jwtUtils.getEmailFromToken(token));
             }
         }
 
         chain.doFilter(request, response);
     }
+
+    private boolean isNotificationStream(HttpServletRequest httpReq) {
+        return httpReq.getMethod().equals("GET") && httpReq.getRequestURI().equals("/api/notifications/stream");
+    }
+
+    private void authenticate(HttpServletRequest httpReq, String email) {
+        UserDetails userDetails = customUserDetailsService.loadUserByUsername(email);
+
+        UsernamePasswordAuthenticationToken authToken =
+                new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities());
+
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(httpReq));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
 }
@@ -16,6 +16,12 @@ public class JwtUtils {
     private String JWT_SECRET; // must be 256-bit key (min 32 chars)
     @Value("${jwt.expiration}")
     private long JWT_EXPIRATION; // 1 day in milliseconds
+    @Value("${jwt.stream-expiration:60000}")
+    private long STREAM_TOKEN_EXPIRATION; // only has to outlive the stream handshake
+
+    // Scoped tokens can only open the endpoint they were issued for, never authenticate as a bearer token
+    private static final String SCOPE_CLAIM = "scope";
+    public static final String NOTIFICATION_STREAM_SCOPE = "notification-stream";
 
     //  Generate JWT using email
     public String generateToken(String email) {
@@ -27,12 +33,36 @@ public class JwtUtils {
                 .compact();
     }
 
+    //  Short-lived token for clients that cannot send an Authorization header, e.g. EventSource
+    public String generateScopedToken(String email, String scope) {
+        return Jwts.builder()
+                .setSubject(email)
+                .claim(SCOPE_CLAIM, scope)
+                .setIssuedAt(new Date(System.currentTimeMillis()))
+                .setExpiration(new Date(System.currentTimeMillis() + STREAM_TOKEN_EXPIRATION))
+                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    public long getScopedTokenExpiration() {
+        return STREAM_TOKEN_EXPIRATION;
+    }
+
     //  Validate JWT
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSignKey()).build().parseClaimsJws(token);
-            return true;
-        } catch (JwtException e) {
+            Claims claims = Jwts.parserBuilder().setSigningKey(getSignKey()).build().parseClaimsJws(token).getBody();
+            return claims.get(SCOPE_CLAIM) == null;
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public boolean validateScopedToken(String token, String scope) {
+        try {
+            Claims claims = Jwts.parserBuilder().setSigningKey(getSignKey()).build().parseClaimsJws(token).getBody();
+            return scope.equals(claims.get(SCOPE_CLAIM, String.class));
+        } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
@@ -1,42 +1,41 @@
 package com.paf.knowledgenest.service.challenges;
 
+import com.paf.knowledgenest.dto.responses.ChallengeLeaderboardEntry;
 import com.paf.knowledgenest.model.challenges.Challenge;
 import com.paf.knowledgenest.model.challenges.ChallengeAttempt;
 import com.paf.knowledgenest.repository.challenges.ChallengeAttemptRepository;
 import com.paf.knowledgenest.repository.challenges.ChallengeRepository;
+import com.paf.knowledgenest.service.challenges.scoring.ChallengeScoringEngine;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 
+@Slf4j
 @Service
 public class ChallengeAttemptService {
 
     private final ChallengeRepository challengeRepository;
     private final ChallengeAttemptRepository attemptRepository;
+    private final ChallengeScoringEngine scoringEngine;
+    private final ChallengeStatsService statsService;
+    private final ChallengeLeaderboardService leaderboardService;
 
     @Autowired
-    public ChallengeAttemptService(ChallengeRepository challengeRepository, ChallengeAttemptRepository attemptRepository) {
+    public ChallengeAttemptService(ChallengeRepository challengeRepository, ChallengeAttemptRepository attemptRepository,
+                                   ChallengeScoringEngine scoringEngine, ChallengeStatsService statsService,
+                                   ChallengeLeaderboardService leaderboardService) {
         this.challengeRepository = challengeRepository;
         this.attemptRepository = attemptRepository;
-    }
-
-    // Simulate auto-evaluation (you can replace this with smarter logic later)
-    private int evaluateAnswers(List<String> correctTasks, List<String> userAnswers) {
-        int score = 0;
-        for (int i = 0; i < Math.min(correctTasks.size(), userAnswers.size()); i++) {
-            // Simple logic: check if user's answer contains any keyword from question
-            String task = correctTasks.get(i).toLowerCase();
-            String answer = userAnswers.get(i).toLowerCase();
-            if (answer.contains(task.split(" ")[0])) { // crude matching
-                score++;
-            }
-        }
-        return score;
+        this.scoringEngine = scoringEngine;
+        this.statsService = statsService;
+        this.leaderboardService = leaderboardService;
     }
 
     public ChallengeAttempt submitChallenge(String challengeId, String userId, List<String> answers, LocalDateTime startedAt) {
@@ -51,7 +50,7 @@ public class ChallengeAttemptService {
 
         int score = 0;
         if (submittedInTime) {
-            score = evaluateAnswers(challenge.getTasks(), answers);
+            score = scoringEngine.grade(challenge, answers);
         }
 
         ChallengeAttempt attempt = ChallengeAttempt.builder()
@@ -60,11 +59,26 @@ public class ChallengeAttemptService {
                 .userAnswers(answers)
                 .startedAt(startedAt)
                 .submittedAt(submittedAt)
+                .durationMillis(Duration.between(startedAt, submittedAt).toMillis())
                 .submittedInTime(submittedInTime)
                 .score(score)
                 .build();
 
-        return attemptRepository.save(attempt);
+        // The attempt is what the user submitted; the aggregates below can be rebuilt, so their
+        // failures are logged instead of failing the submission. ChallengeStatsBackfill counts
+        // an attempt whose claim did not complete on one of its next runs.
+        ChallengeAttempt saved = attemptRepository.save(attempt);
+        try {
+            statsService.claimAndRecord(saved);
+        } catch (RuntimeException e) {
+            log.warn("ChallengeAttemptService: could not add attempt {} to the stats: {}", saved.getId(), e.getMessage());
+        }
+        try {
+            leaderboardService.record(saved);
+        } catch (RuntimeException e) {
+            log.warn("ChallengeAttemptService: could not add attempt {} to the leaderboard: {}", saved.getId(), e.getMessage());
+        }
+        return saved;
     }
 
     public List<ChallengeAttempt> getAttemptsByUser(String userId) {
@@ -83,21 +97,19 @@ public class ChallengeAttemptService {
                 .orElseThrow(() -> new RuntimeException("Result not found"));
     }
 
-    // used for report generation remove if this begins to throw errors
-    public HashMap<Object, Object> getChallengeStats(String challengeId) {
-        List<ChallengeAttempt> attempts = attemptRepository.findByChallengeId(challengeId);
-
-        int totalAttempts = attempts.size();
-        double averageScore = attempts.stream().mapToInt(ChallengeAttempt::getScore).average().orElse(0.0);
-        int maxScore = attempts.stream().mapToInt(ChallengeAttempt::getScore).max().orElse(0);
+    // Participants ranked by score, then by completion time
+    public List<ChallengeLeaderboardEntry> getLeaderboard(String challengeId, int offset, int limit) {
+        return leaderboardService.top(challengeId, offset, limit);
+    }
 
-        HashMap<Object, Object> stats = new HashMap<>();
-        stats.put("challengeId", challengeId);
-        stats.put("totalAttempts", totalAttempts);
-        stats.put("averageScore", averageScore);
-        stats.put("maxScore", maxScore);
+    // The user's place on the challenge leaderboard, or null when they have not attempted it
+    public ChallengeLeaderboardEntry getLeaderboardRank(String challengeId, String userId) {
+        return leaderboardService.rankOf(challengeId, userId);
+    }
 
-        return stats;
+    // used for report generation; one read of the running aggregates
+    public HashMap<Object, Object> getChallengeStats(String challengeId) {
+        return statsService.getStats(challengeId);
     }
 
 
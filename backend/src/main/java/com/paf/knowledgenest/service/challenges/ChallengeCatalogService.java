@@ -0,0 +1,114 @@
+package com.paf.knowledgenest.service.challenges;
+
+import com.paf.knowledgenest.dto.responses.ChallengeCatalogPage;
+import com.paf.knowledgenest.model.challenges.Challenge;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Paged, filtered reads of the challenge list, backed by the compound indexes on Challenge.
+ *
+ * The catalog is read far more often than it changes, so recently requested pages are kept
+ * in an LRU cache. Every write in ChallengeService calls invalidate(); a short TTL covers
+ * writes made elsewhere.
+ */
+@Service
+public class ChallengeCatalogService {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "_id");
+
+    private final MongoTemplate mongoTemplate;
+    private final long ttlMillis;
+
+    private final Map<CatalogQuery, CachedPage> cache;
+    // Bumped on every invalidation so a page loaded across a write is not cached
+    private long generation;
+
+    public ChallengeCatalogService(
+            MongoTemplate mongoTemplate,
+            @Value("${challenges.catalog.cache-size:500}") int cacheSize,
+            @Value("${challenges.catalog.cache-ttl-ms:60000}") long ttlMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.ttlMillis = ttlMillis;
+        this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CatalogQuery, CachedPage> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    // Filters are optional; a null filter matches every value
+    public ChallengeCatalogPage page(String category, String difficulty, Boolean active, int page, int size) {
+        CatalogQuery key = new CatalogQuery(category, difficulty, active,
+                Math.max(0, page), Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+
+        long loadedGeneration;
+        synchronized (cache) {
+            CachedPage cached = cache.get(key);
+            if (cached != null && System.currentTimeMillis() - cached.loadedAt() < ttlMillis) {
+                return cached.page();
+            }
+            loadedGeneration = generation;
+        }
+
+        ChallengeCatalogPage loaded = load(key);
+        synchronized (cache) {
+            if (generation == loadedGeneration) {
+                cache.put(key, new CachedPage(loaded, System.currentTimeMillis()));
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate() {
+        synchronized (cache) {
+            cache.clear();
+            generation++;
+        }
+    }
+
+    private ChallengeCatalogPage load(CatalogQuery key) {
+        Criteria criteria = new Criteria();
+        if (key.category() != null) {
+            criteria.and("skillCategory").is(key.category());
+        }
+        if (key.active() != null) {
+            criteria.and("isActive").is(key.active());
+        }
+        if (key.difficulty() != null) {
+            criteria.and("difficultyLevel").is(key.difficulty());
+        }
+
+        Query query = Query.query(criteria)
+                .with(NEWEST_FIRST)
+                .skip((long) key.page() * key.size())
+                .limit(key.size());
+        List<Challenge> items = mongoTemplate.find(query, Challenge.class);
+        long total = mongoTemplate.count(Query.query(criteria), Challenge.class);
+
+        return ChallengeCatalogPage.builder()
+                .items(List.copyOf(items))
+                .page(key.page())
+                .size(key.size())
+                .total(total)
+                .hasNext((long) (key.page() + 1) * key.size() < total)
+                .build();
+    }
+
+    private record CatalogQuery(String category, String difficulty, Boolean active, int page, int size) {
+    }
+
+    private record CachedPage(ChallengeCatalogPage page, long loadedAt) {
+    }
+}
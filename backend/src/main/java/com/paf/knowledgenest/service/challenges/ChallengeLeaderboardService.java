@@ -0,0 +1,266 @@
+package com.paf.knowledgenest.service.challenges;
+
+import com.paf.knowledgenest.dto.responses.ChallengeLeaderboardEntry;
+import com.paf.knowledgenest.dto.responses.UserSummary;
+import com.paf.knowledgenest.model.challenges.ChallengeAttempt;
+import com.paf.knowledgenest.model.challenges.ChallengeStats;
+import com.paf.knowledgenest.repository.user.UserRepository;
+import com.paf.knowledgenest.utils.RankedIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Per-challenge rankings of participants: highest score first, then fastest completion
+ * (submittedAt - startedAt), each user ranked by their best attempt.
+ *
+ * Each board is a RankedIndex keyed by user id, so top-N and a user's rank are O(log n).
+ * Score and duration are packed into one long that sorts the same way. Only the most
+ * recently used boards stay in memory (challenges.leaderboard.max-boards). A board is
+ * loaded from the challengeId/score/durationMillis index the first time it is asked for,
+ * and the most recently attempted challenges are loaded at startup. Submissions are applied
+ * to loaded boards as they are saved.
+ */
+@Slf4j
+@Service
+public class ChallengeLeaderboardService {
+
+    // Durations are clamped to 2^40 ms (about 35 years), leaving the high bits for the score
+    private static final long DURATION_SPAN = 1L << 40;
+
+    private final MongoTemplate mongoTemplate;
+    private final UserRepository userRepository;
+    private final int warmUpBoards;
+
+    // Guarded by itself; a board's contents are guarded by the board
+    private final Map<String, Board> boards;
+
+    public ChallengeLeaderboardService(
+            MongoTemplate mongoTemplate,
+            UserRepository userRepository,
+            @Value("${challenges.leaderboard.max-boards:200}") int maxBoards,
+            @Value("${challenges.leaderboard.warm-up-boards:50}") int warmUpBoards) {
+        this.mongoTemplate = mongoTemplate;
+        this.userRepository = userRepository;
+        this.warmUpBoards = Math.min(warmUpBoards, maxBoards);
+        this.boards = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Board> eldest) {
+                return size() > maxBoards;
+            }
+        };
+    }
+
+    // Entries ranked offset+1 .. offset+limit
+    public List<ChallengeLeaderboardEntry> top(String challengeId, int offset, int limit) {
+        Board board = board(challengeId);
+        if (board == null) {
+            return List.of();
+        }
+        List<RankedIndex.Entry<String>> entries;
+        synchronized (board) {
+            entries = board.index.range(offset, limit);
+        }
+        return hydrate(entries, offset);
+    }
+
+    // The user's entry, or null when they have not attempted the challenge
+    public ChallengeLeaderboardEntry rankOf(String challengeId, String userId) {
+        Board board = board(challengeId);
+        if (board == null) {
+            return null;
+        }
+        int rank;
+        List<RankedIndex.Entry<String>> entries;
+        synchronized (board) {
+            rank = board.index.rankOf(userId);
+            if (rank < 0) {
+                return null;
+            }
+            entries = board.index.range(rank, 1);
+        }
+        return hydrate(entries, rank).get(0);
+    }
+
+    // Called after an attempt is saved; boards not in memory read it when they are loaded
+    public void record(ChallengeAttempt attempt) {
+        Board board;
+        synchronized (boards) {
+            board = boards.get(attempt.getChallengeId());
+        }
+        if (board != null) {
+            board.offer(attempt.getUserId(), pack(attempt));
+        }
+    }
+
+    // Drops a deleted user from every board in memory; their attempts are gone from the database
+    public void removeUser(String userId) {
+        List<Board> loaded;
+        synchronized (boards) {
+            loaded = new ArrayList<>(boards.values());
+        }
+        for (Board board : loaded) {
+            synchronized (board) {
+                board.index.remove(userId);
+            }
+        }
+    }
+
+    // Loads the boards of the most recently attempted challenges
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.nanoTime();
+        Query recent = new Query().with(Sort.by(Sort.Direction.DESC, "updatedAt")).limit(warmUpBoards);
+        recent.fields().include("_id");
+        List<ChallengeStats> challenges = mongoTemplate.find(recent, ChallengeStats.class);
+        for (ChallengeStats stats : challenges) {
+            board(stats.getChallengeId());
+        }
+        log.info("ChallengeLeaderboardService: loaded {} challenge boards in {} ms",
+                challenges.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // The board in memory, loading it first if needed; callers of a board being loaded wait for
+    // it. Null for a challenge without stats, i.e. one nobody attempted or that does not exist,
+    // so arbitrary ids never take a place among the cached boards.
+    private Board board(String challengeId) {
+        Board board;
+        synchronized (boards) {
+            board = boards.get(challengeId);
+        }
+        if (board == null && !mongoTemplate.exists(Query.query(Criteria.where("_id").is(challengeId)), ChallengeStats.class)) {
+            return null;
+        }
+
+        boolean load = false;
+        synchronized (boards) {
+            board = boards.get(challengeId);
+            if (board == null) {
+                board = new Board();
+                boards.put(challengeId, board);
+                load = true;
+            }
+        }
+        if (!load) {
+            board.awaitLoaded();
+            return board;
+        }
+
+        // Submissions saved while this runs are offered to the board as well; keeping the
+        // best score per user makes seeing an attempt twice harmless
+        try {
+            load(challengeId, board);
+            board.markLoaded(true);
+        } catch (RuntimeException e) {
+            synchronized (boards) {
+                boards.remove(challengeId, board);
+            }
+            board.markLoaded(false);
+            throw e;
+        }
+        return board;
+    }
+
+    // Walks the challenge's attempts in index order, reading only what the ranking needs
+    private void load(String challengeId, Board board) {
+        Query query = Query.query(Criteria.where("challengeId").is(challengeId))
+                .with(Sort.by(Sort.Order.desc("score"), Sort.Order.asc("durationMillis")));
+        query.fields().include("userId").include("score").include("durationMillis").include("startedAt").include("submittedAt");
+
+        try (Stream<ChallengeAttempt> attempts = mongoTemplate.stream(query, ChallengeAttempt.class)) {
+            attempts.forEach(attempt -> board.offer(attempt.getUserId(), pack(attempt)));
+        }
+    }
+
+    // Higher is better: score in the high bits, time left under DURATION_SPAN in the low bits
+    private static long pack(ChallengeAttempt attempt) {
+        return attempt.getScore() * DURATION_SPAN + (DURATION_SPAN - 1 - durationOf(attempt));
+    }
+
+    // Attempts saved before durationMillis existed fall back to their timestamps
+    private static long durationOf(ChallengeAttempt attempt) {
+        Long duration = attempt.getDurationMillis();
+        if (duration == null) {
+            if (attempt.getStartedAt() == null || attempt.getSubmittedAt() == null) {
+                return DURATION_SPAN - 1;
+            }
+            duration = Duration.between(attempt.getStartedAt(), attempt.getSubmittedAt()).toMillis();
+        }
+        return Math.max(0, Math.min(duration, DURATION_SPAN - 1));
+    }
+
+    // Names and pictures for one page, from a single projected $in
+    private List<ChallengeLeaderboardEntry> hydrate(List<RankedIndex.Entry<String>> entries, int offset) {
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+        Map<String, UserSummary> users = userRepository.findByIdIn(entries.stream().map(RankedIndex.Entry::key).toList()).stream()
+                .collect(Collectors.toMap(UserSummary::getId, Function.identity()));
+
+        return IntStream.range(0, entries.size())
+                .mapToObj(i -> {
+                    RankedIndex.Entry<String> entry = entries.get(i);
+                    UserSummary user = users.get(entry.key());
+                    return ChallengeLeaderboardEntry.builder()
+                            .rank(offset + i + 1)
+                            .userId(entry.key())
+                            .name(user != null ? user.getName() : null)
+                            .username(user != null ? user.getUsername() : null)
+                            .profilePic(user != null ? user.getProfilePic() : null)
+                            .score((int) (entry.score() / DURATION_SPAN))
+                            .durationMillis(DURATION_SPAN - 1 - entry.score() % DURATION_SPAN)
+                            .build();
+                })
+                .toList();
+    }
+
+    private static final class Board {
+        private final RankedIndex<String> index = new RankedIndex<>();
+        private boolean loaded;
+        private boolean failed;
+
+        // Keeps the user's best attempt
+        synchronized void offer(String userId, long packed) {
+            Long current = index.scoreOf(userId);
+            if (current == null || packed > current) {
+                index.put(userId, packed);
+            }
+        }
+
+        synchronized void markLoaded(boolean success) {
+            loaded = true;
+            failed = !success;
+            notifyAll();
+        }
+
+        synchronized void awaitLoaded() {
+            while (!loaded) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while loading the challenge leaderboard", e);
+                }
+            }
+            if (failed) {
+                throw new IllegalStateException("Challenge leaderboard failed to load");
+            }
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.paf.knowledgenest.service.challenges;
 
+import com.paf.knowledgenest.dto.responses.ChallengeCatalogPage;
 import com.paf.knowledgenest.model.challenges.Challenge;
 import com.paf.knowledgenest.repository.challenges.ChallengeRepository;
+import com.paf.knowledgenest.service.challenges.scoring.ChallengeScoringEngine;
 import com.paf.knowledgenest.utils.ApiResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -15,27 +17,42 @@ public class ChallengeService {
     @Autowired
     private ChallengeRepository challengeRepository;
 
+    @Autowired
+    private ChallengeCatalogService challengeCatalogService;
+
+    @Autowired
+    private ChallengeScoringEngine scoringEngine;
+
     // Create a new challenge
     public ApiResponse<Challenge> createChallenge(Challenge challenge) {
         try{
+            scoringEngine.validate(challenge);
             Challenge savedChallenge =  challengeRepository.save(challenge);
+            challengeCatalogService.invalidate();
 
             return ApiResponse.successResponse("Challenge Saved Successfully", savedChallenge);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.errorResponse("Invalid answer keys: " + e.getMessage());
         } catch (Exception e) {
             return ApiResponse.errorResponse("Unexpected Error Occurred while attempting to save challenge");
         }
     }
 
-    // Get all challenges (admin or user view)
+    // Get all challenges (admin or user view); the whole list, uncached. Pages come from getCatalog
     public List<Challenge> getAllChallenges() {
         return challengeRepository.findAll();
     }
 
-    // Get challenges by category (coding, cooking, DIY)
+    // Get challenges by category (coding, cooking, DIY); the whole list, uncached
     public List<Challenge> getChallengesByCategory(String category) {
         return challengeRepository.findBySkillCategory(category);
     }
 
+    // Paged catalog with optional filters, served from the catalog cache
+    public ChallengeCatalogPage getCatalog(String category, String difficulty, Boolean active, int page, int size) {
+        return challengeCatalogService.page(category, difficulty, active, page, size);
+    }
+
     // Get challenge by ID
     public Optional<Challenge> getChallengeById(String id) {
         return challengeRepository.findById(id);
@@ -56,8 +73,15 @@ public class ChallengeService {
                         existingChallenge.setSkillCategory(updatedChallenge.getSkillCategory());
                         existingChallenge.setDifficultyLevel(updatedChallenge.getDifficultyLevel());
                         existingChallenge.setTimeLimit(updatedChallenge.getTimeLimit());
+                        // Clients that do not know about answer keys leave the existing ones alone
+                        if (updatedChallenge.getAnswerKeys() != null) {
+                            existingChallenge.setScoringStrategy(updatedChallenge.getScoringStrategy());
+                            existingChallenge.setAnswerKeys(updatedChallenge.getAnswerKeys());
+                        }
+                        scoringEngine.validate(existingChallenge);
 
                         Challenge savedChallenge = challengeRepository.save(existingChallenge);
+                        challengeCatalogService.invalidate();
                         return ApiResponse.successResponse("Challenge updated successfully", savedChallenge);
                     })
                     .orElse(ApiResponse.errorResponse("Challenge with ID " + id + " not found"));
@@ -71,6 +95,7 @@ public class ChallengeService {
         try {
             if (challengeRepository.existsById(id)) {
                 challengeRepository.deleteById(id);
+                challengeCatalogService.invalidate();
                 return ApiResponse.successResponse(
                         "Challenge with ID " + id + " deleted successfully",
                         null
@@ -92,6 +117,7 @@ public class ChallengeService {
         challengeRepository.findById(id).ifPresent(challenge -> {
             challenge.setActive(false);
             challengeRepository.save(challenge);
+            challengeCatalogService.invalidate();
         });
     }
 
@@ -100,7 +126,9 @@ public class ChallengeService {
         Challenge challenge = challengeRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Challenge not found"));
         challenge.setActive(!challenge.isActive());
-        return challengeRepository.save(challenge);
+        Challenge saved = challengeRepository.save(challenge);
+        challengeCatalogService.invalidate();
+        return saved;
     }
 
 }
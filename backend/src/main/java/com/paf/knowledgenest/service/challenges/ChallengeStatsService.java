@@ -0,0 +1,131 @@
+package com.paf.knowledgenest.service.challenges;
+
+import com.paf.knowledgenest.model.challenges.ChallengeAttempt;
+import com.paf.knowledgenest.model.challenges.ChallengeStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-challenge aggregates behind the attempt report.
+ *
+ * Each attempt is counted at most once, guarded by its statsRecorded flag. Attempts are saved
+ * without the flag. Counting one takes three steps: claim it by stamping statsClaimedAt, add
+ * it with a single atomic upsert, then confirm by setting the flag, which only succeeds while
+ * the claim is still ours. New attempts are counted right after saving; older ones, and any
+ * whose claim is older than challenges.stats.claim-timeout-ms without being confirmed, by
+ * ChallengeStatsBackfill. Deletion sets the flag to false, subtracting only if it was true,
+ * so a retried cleanup never subtracts twice. A claimer whose confirmation fails, because
+ * the attempt was released or claimed again meanwhile, takes its own increment back out.
+ */
+@Service
+public class ChallengeStatsService {
+
+    private final MongoTemplate mongoTemplate;
+    private final long claimTimeoutMillis;
+
+    public ChallengeStatsService(
+            MongoTemplate mongoTemplate,
+            @Value("${challenges.stats.claim-timeout-ms:300000}") long claimTimeoutMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.claimTimeoutMillis = claimTimeoutMillis;
+    }
+
+    // Attempts not counted yet whose claim, if any, has gone stale
+    public Criteria claimable() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(claimTimeoutMillis, ChronoUnit.MILLIS);
+        return Criteria.where("statsRecorded").exists(false)
+                .orOperator(Criteria.where("statsClaimedAt").exists(false), Criteria.where("statsClaimedAt").lt(staleBefore));
+    }
+
+    // Adds an attempt not counted yet; false if someone else holds it or already counted or released it
+    public boolean claimAndRecord(ChallengeAttempt attempt) {
+        // Millisecond precision, so the stamp reads back from Mongo exactly as written
+        LocalDateTime claim = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        long claimed = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(attempt.getId()).andOperator(claimable())),
+                new Update().set("statsClaimedAt", claim),
+                ChallengeAttempt.class).getModifiedCount();
+        if (claimed == 0) {
+            return false;
+        }
+
+        // A failure here leaves the claim pending; the backfill picks it up once it is stale
+        mongoTemplate.upsert(byChallenge(attempt.getChallengeId()),
+                increments(attempt, 1).max("maxScore", attempt.getScore()),
+                ChallengeStats.class);
+
+        long confirmed = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(attempt.getId())
+                        .and("statsRecorded").exists(false)
+                        .and("statsClaimedAt").is(claim)),
+                new Update().set("statsRecorded", true).unset("statsClaimedAt"),
+                ChallengeAttempt.class).getModifiedCount();
+        if (confirmed == 0) {
+            // Released for deletion without being subtracted, or counted by whoever claimed it next
+            mongoTemplate.updateFirst(byChallenge(attempt.getChallengeId()), increments(attempt, -1), ChallengeStats.class);
+            return false;
+        }
+        return true;
+    }
+
+    // Takes attempts that are about to be deleted back out of the totals
+    public void remove(List<ChallengeAttempt> attempts) {
+        for (ChallengeAttempt attempt : attempts) {
+            ChallengeAttempt released = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(attempt.getId()).and("statsRecorded").ne(false)),
+                    new Update().set("statsRecorded", false),
+                    ChallengeAttempt.class);
+            if (released != null && Boolean.TRUE.equals(released.getStatsRecorded())) {
+                mongoTemplate.updateFirst(byChallenge(attempt.getChallengeId()), increments(attempt, -1), ChallengeStats.class);
+            }
+        }
+    }
+
+    // Report fields, zeros for a challenge nobody attempted yet
+    public HashMap<Object, Object> getStats(String challengeId) {
+        ChallengeStats stats = mongoTemplate.findById(challengeId, ChallengeStats.class);
+        if (stats == null) {
+            stats = new ChallengeStats();
+        }
+
+        Map<Integer, Long> histogram = new TreeMap<>();
+        stats.getHistogram().forEach((score, count) -> {
+            if (count > 0) {
+                histogram.put(Integer.valueOf(score), count);
+            }
+        });
+
+        HashMap<Object, Object> report = new HashMap<>();
+        report.put("challengeId", challengeId);
+        report.put("totalAttempts", stats.getAttempts());
+        report.put("averageScore", stats.getAttempts() == 0 ? 0.0 : (double) stats.getScoreSum() / stats.getAttempts());
+        report.put("maxScore", stats.getMaxScore());
+        report.put("onTimeRatio", stats.getAttempts() == 0 ? 0.0 : (double) stats.getOnTime() / stats.getAttempts());
+        report.put("scoreHistogram", histogram);
+        return report;
+    }
+
+    private static Query byChallenge(String challengeId) {
+        return Query.query(Criteria.where("_id").is(challengeId));
+    }
+
+    private static Update increments(ChallengeAttempt attempt, int sign) {
+        return new Update()
+                .inc("attempts", sign)
+                .inc("scoreSum", sign * attempt.getScore())
+                .inc("onTime", attempt.isSubmittedInTime() ? sign : 0)
+                .inc("histogram." + attempt.getScore(), sign)
+                .set("updatedAt", LocalDateTime.now());
+    }
+}
@@ -0,0 +1,8 @@
+package com.paf.knowledgenest.service.challenges.scoring;
+
+// The compiled answer key of a single task. Built once per challenge version and shared by
+// every grading thread, so implementations must be immutable.
+public interface AnswerMatcher {
+
+    boolean matches(String answer);
+}
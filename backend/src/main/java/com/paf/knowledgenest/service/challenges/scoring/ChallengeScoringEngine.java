@@ -0,0 +1,116 @@
+package com.paf.knowledgenest.service.challenges.scoring;
+
+import com.paf.knowledgenest.model.challenges.Challenge;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Grades challenge attempts with the strategy named on the challenge (KEYWORD when unset).
+ *
+ * A challenge's answer keys are compiled into matchers once and cached by challenge id
+ * together with the document version they were built from; saving the challenge bumps the
+ * version, so the next attempt recompiles without any explicit invalidation. Grading an
+ * attempt then only runs the prepared matchers.
+ */
+@Service
+public class ChallengeScoringEngine {
+
+    private final Map<String, ScoringStrategy> strategies = new HashMap<>();
+    private final KeywordScoringStrategy keywordStrategy;
+    private final Map<String, CachedScorer> cache;
+
+    public ChallengeScoringEngine(
+            List<ScoringStrategy> strategies,
+            KeywordScoringStrategy keywordStrategy,
+            @Value("${challenges.scoring.cache-size:1000}") int cacheSize) {
+        for (ScoringStrategy strategy : strategies) {
+            this.strategies.put(strategy.name(), strategy);
+        }
+        this.keywordStrategy = keywordStrategy;
+        this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedScorer> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    // Number of tasks answered correctly
+    public int grade(Challenge challenge, List<String> answers) {
+        if (answers == null) {
+            return 0;
+        }
+        AnswerMatcher[] matchers = scorerFor(challenge);
+        int tasks = Math.min(matchers.length, answers.size());
+        int score = 0;
+        for (int i = 0; i < tasks; i++) {
+            if (matchers[i].matches(answers.get(i))) {
+                score++;
+            }
+        }
+        return score;
+    }
+
+    // Compiles the challenge's answer keys; throws IllegalArgumentException describing the first bad one
+    public void validate(Challenge challenge) {
+        compile(challenge);
+    }
+
+    private AnswerMatcher[] scorerFor(Challenge challenge) {
+        if (challenge.getId() == null) {
+            return compile(challenge);
+        }
+        synchronized (cache) {
+            CachedScorer cached = cache.get(challenge.getId());
+            if (cached != null && Objects.equals(cached.version(), challenge.getVersion())) {
+                return cached.matchers();
+            }
+        }
+        // Compiled outside the lock; two threads racing on a new version just both compile it
+        AnswerMatcher[] matchers = compile(challenge);
+        synchronized (cache) {
+            cache.put(challenge.getId(), new CachedScorer(challenge.getVersion(), matchers));
+        }
+        return matchers;
+    }
+
+    private AnswerMatcher[] compile(Challenge challenge) {
+        List<String> tasks = challenge.getTasks() == null ? List.of() : challenge.getTasks();
+        List<String> keys = challenge.getAnswerKeys();
+        AnswerMatcher[] matchers = new AnswerMatcher[tasks.size()];
+
+        if (keys == null || keys.isEmpty()) {
+            for (int i = 0; i < matchers.length; i++) {
+                matchers[i] = keywordStrategy.compileLegacy(tasks.get(i));
+            }
+            return matchers;
+        }
+
+        String name = challenge.getScoringStrategy() == null ? KeywordScoringStrategy.NAME : challenge.getScoringStrategy().toUpperCase(Locale.ROOT);
+        ScoringStrategy strategy = strategies.get(name);
+        if (strategy == null) {
+            throw new IllegalArgumentException("Unknown scoring strategy: " + challenge.getScoringStrategy());
+        }
+        if (keys.size() != tasks.size()) {
+            throw new IllegalArgumentException("Expected " + tasks.size() + " answer keys, got " + keys.size());
+        }
+        for (int i = 0; i < matchers.length; i++) {
+            try {
+                matchers[i] = strategy.compile(keys.get(i));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Task " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        return matchers;
+    }
+
+    private record CachedScorer(Long version, AnswerMatcher[] matchers) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.paf.knowledgenest.service.challenges.scoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Key: the expected answer. Both sides are normalized (lower case, letters and digits only,
+ * single spaces) and the answer is correct when its edit distance to the key is small
+ * relative to the longer of the two: similarity = 1 - distance / length, at least
+ * challenges.scoring.fuzzy.min-similarity. Answers longer than
+ * challenges.scoring.fuzzy.max-answer-chars are wrong without being normalized, so a huge
+ * answer cannot grow the scratch buffers or the distance rows.
+ *
+ * The key is normalized once at compile time. Answers are normalized into per-thread
+ * scratch buffers, and the distance computation stops as soon as a row exceeds the allowed
+ * number of edits, so grading allocates nothing once a thread's buffers have grown.
+ */
+@Component
+public class FuzzyScoringStrategy implements ScoringStrategy {
+
+    public static final String NAME = "FUZZY";
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final double minSimilarity;
+    private final int maxAnswerChars;
+
+    public FuzzyScoringStrategy(
+            @Value("${challenges.scoring.fuzzy.min-similarity:0.8}") double minSimilarity,
+            @Value("${challenges.scoring.fuzzy.max-answer-chars:2000}") int maxAnswerChars) {
+        this.minSimilarity = minSimilarity;
+        this.maxAnswerChars = maxAnswerChars;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public AnswerMatcher compile(String answerKey) {
+        char[] buffer = new char[answerKey == null ? 0 : answerKey.length()];
+        int length = normalize(answerKey, buffer);
+        if (length == 0) {
+            throw new IllegalArgumentException("Fuzzy answer key has no letters or digits");
+        }
+        char[] expected = Arrays.copyOf(buffer, length);
+        return answer -> similar(expected, answer);
+    }
+
+    private boolean similar(char[] expected, String answer) {
+        if (answer == null || answer.length() > maxAnswerChars) {
+            return false;
+        }
+        Scratch scratch = SCRATCH.get();
+        char[] text = scratch.text(answer.length());
+        int length = normalize(answer, text);
+
+        int longest = Math.max(expected.length, length);
+        int maxEdits = (int) Math.floor((1 - minSimilarity) * longest);
+        if (Math.abs(expected.length - length) > maxEdits) {
+            return false;
+        }
+
+        // Two-row Levenshtein; expected is the shorter dimension in the common case
+        int[] previous = scratch.previous(expected.length + 1);
+        int[] current = scratch.current(expected.length + 1);
+        for (int j = 0; j <= expected.length; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= length; i++) {
+            current[0] = i;
+            int rowMin = i;
+            char c = text[i - 1];
+            for (int j = 1; j <= expected.length; j++) {
+                int substitute = previous[j - 1] + (expected[j - 1] == c ? 0 : 1);
+                int value = Math.min(substitute, Math.min(previous[j], current[j - 1]) + 1);
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[expected.length] <= maxEdits;
+    }
+
+    // Writes the normalized form of text into out (at least text.length() long) and returns its length
+    private static int normalize(String text, char[] out) {
+        int length = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; text != null && i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && length > 0) {
+                    out[length++] = ' ';
+                }
+                out[length++] = Character.toLowerCase(c);
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return length;
+    }
+
+    private static final class Scratch {
+        private char[] text = new char[256];
+        private int[] previous = new int[64];
+        private int[] current = new int[64];
+
+        char[] text(int size) {
+            if (text.length < size) {
+                text = new char[size];
+            }
+            return text;
+        }
+
+        int[] previous(int size) {
+            if (previous.length < size) {
+                previous = new int[size];
+            }
+            return previous;
+        }
+
+        int[] current(int size) {
+            if (current.length < size) {
+                current = new int[size];
+            }
+            return current;
+        }
+    }
+}
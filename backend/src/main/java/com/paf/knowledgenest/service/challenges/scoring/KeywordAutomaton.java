@@ -0,0 +1,118 @@
+package com.paf.knowledgenest.service.challenges.scoring;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton over a set of keywords: matches() tells whether an answer contains
+ * any of them, case-insensitively, in one pass over the answer whatever the number of
+ * keywords.
+ *
+ * Each state keeps its outgoing characters sorted in a char[] with the target states in a
+ * parallel int[], so matching is a binary search per step and allocates nothing.
+ */
+final class KeywordAutomaton implements AnswerMatcher {
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final int[] NO_TARGETS = new int[0];
+
+    private final char[][] labels;
+    private final int[][] targets;
+    private final int[] fail;
+    // True when some keyword ends here or at a state on the failure chain
+    private final boolean[] terminal;
+
+    KeywordAutomaton(Collection<String> keywords) {
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Boolean> ends = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        ends.add(false);
+        for (String keyword : keywords) {
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = Character.toLowerCase(keyword.charAt(i));
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(state).put(c, next);
+                    trie.add(new TreeMap<>());
+                    ends.add(false);
+                }
+                state = next;
+            }
+            ends.set(state, true);
+        }
+
+        int states = trie.size();
+        labels = new char[states][];
+        targets = new int[states][];
+        fail = new int[states];
+        terminal = new boolean[states];
+        for (int s = 0; s < states; s++) {
+            Map<Character, Integer> edges = trie.get(s);
+            labels[s] = edges.isEmpty() ? NO_LABELS : new char[edges.size()];
+            targets[s] = edges.isEmpty() ? NO_TARGETS : new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                labels[s][i] = edge.getKey();
+                targets[s][i] = edge.getValue();
+                i++;
+            }
+            terminal[s] = ends.get(s);
+        }
+
+        // Breadth-first, so a state's failure target is always finished before the state
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            for (int i = 0; i < labels[s].length; i++) {
+                int child = targets[s][i];
+                int f = fail[s];
+                int next;
+                while ((next = step(f, labels[s][i])) < 0 && f != 0) {
+                    f = fail[f];
+                }
+                fail[child] = Math.max(next, 0);
+                terminal[child] |= terminal[fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    @Override
+    public boolean matches(String answer) {
+        if (answer == null) {
+            return false;
+        }
+        if (terminal[0]) {
+            // An empty keyword is contained in everything
+            return true;
+        }
+        int state = 0;
+        for (int i = 0; i < answer.length(); i++) {
+            char c = Character.toLowerCase(answer.charAt(i));
+            int next;
+            while ((next = step(state, c)) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = Math.max(next, 0);
+            if (terminal[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int step(int state, char c) {
+        int i = Arrays.binarySearch(labels[state], c);
+        return i < 0 ? -1 : targets[state][i];
+    }
+}
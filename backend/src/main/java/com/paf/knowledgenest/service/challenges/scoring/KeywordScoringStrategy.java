@@ -0,0 +1,36 @@
+package com.paf.knowledgenest.service.challenges.scoring;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Key: comma-separated keywords. An answer is correct if it contains any of them, ignoring case.
+@Component
+public class KeywordScoringStrategy implements ScoringStrategy {
+
+    public static final String NAME = "KEYWORD";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public AnswerMatcher compile(String answerKey) {
+        List<String> keywords = Arrays.stream(answerKey == null ? new String[0] : answerKey.split(","))
+                .map(String::trim)
+                .filter(keyword -> !keyword.isEmpty())
+                .toList();
+        if (keywords.isEmpty()) {
+            throw new IllegalArgumentException("Keyword answer key has no keywords");
+        }
+        return new KeywordAutomaton(keywords);
+    }
+
+    // Challenges without answer keys: the answer must contain the first word of the task,
+    // which is how attempts were graded before answer keys existed
+    AnswerMatcher compileLegacy(String task) {
+        return new KeywordAutomaton(List.of(task.toLowerCase().split(" ")[0]));
+    }
+}
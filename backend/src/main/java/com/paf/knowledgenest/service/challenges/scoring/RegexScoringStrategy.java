@@ -0,0 +1,112 @@
+package com.paf.knowledgenest.service.challenges.scoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Key: a regular expression. An answer is correct if the expression is found anywhere in it,
+ * ignoring case; anchor it with ^...$ to require a whole-answer match.
+ *
+ * Keys are written by challenge creators and java.util.regex backtracks, so a key like
+ * (a+)+$ can take exponential time on a crafted answer. Answers longer than
+ * challenges.scoring.regex.max-answer-chars are wrong without matching, and each match runs
+ * against a view of the answer that gives up once challenges.scoring.regex.timeout-ms has
+ * passed; an answer that runs out of time is graded as wrong.
+ */
+@Slf4j
+@Component
+public class RegexScoringStrategy implements ScoringStrategy {
+
+    public static final String NAME = "REGEX";
+
+    // The clock is read once per this many characters the matcher looks at
+    private static final int CHECK_INTERVAL = 1024;
+
+    private final int maxAnswerChars;
+    private final long timeoutNanos;
+
+    public RegexScoringStrategy(
+            @Value("${challenges.scoring.regex.max-answer-chars:2000}") int maxAnswerChars,
+            @Value("${challenges.scoring.regex.timeout-ms:50}") long timeoutMillis) {
+        this.maxAnswerChars = maxAnswerChars;
+        this.timeoutNanos = timeoutMillis * 1_000_000;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public AnswerMatcher compile(String answerKey) {
+        if (answerKey == null || answerKey.isEmpty()) {
+            throw new IllegalArgumentException("Regex answer key is empty");
+        }
+        try {
+            Pattern pattern = Pattern.compile(answerKey, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            // Pattern is thread-safe; only the Matcher is per answer
+            return answer -> matches(pattern, answer);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid regex answer key: " + e.getDescription());
+        }
+    }
+
+    private boolean matches(Pattern pattern, String answer) {
+        if (answer == null || answer.length() > maxAnswerChars) {
+            return false;
+        }
+        try {
+            return pattern.matcher(new DeadlineCharSequence(answer, System.nanoTime() + timeoutNanos)).find();
+        } catch (MatchTimeoutException e) {
+            log.warn("RegexScoringStrategy: key {} timed out on a {} character answer", pattern.pattern(), answer.length());
+            return false;
+        }
+    }
+
+    private static final class MatchTimeoutException extends RuntimeException {
+        MatchTimeoutException() {
+            super(null, null, false, false);
+        }
+    }
+
+    // The answer as the matcher sees it; every character it reads counts towards the deadline
+    private static final class DeadlineCharSequence implements CharSequence {
+
+        private final String text;
+        private final long deadline;
+        private int reads;
+
+        DeadlineCharSequence(String text, long deadline) {
+            this.text = text;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++reads % CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+                throw new MatchTimeoutException();
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        // Matchers only take subsequences for groups; those are read after the match
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+}
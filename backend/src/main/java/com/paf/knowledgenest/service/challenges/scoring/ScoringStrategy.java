@@ -0,0 +1,11 @@
+package com.paf.knowledgenest.service.challenges.scoring;
+
+// One way of grading a task's answer. Strategies are Spring beans picked by name from
+// Challenge.scoringStrategy; compile() does all parsing up front and throws
+// IllegalArgumentException for a key it cannot use.
+public interface ScoringStrategy {
+
+    String name();
+
+    AnswerMatcher compile(String answerKey);
+}
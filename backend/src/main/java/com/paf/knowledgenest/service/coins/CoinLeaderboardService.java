@@ -0,0 +1,294 @@
+package com.paf.knowledgenest.service.coins;
+
+import com.paf.knowledgenest.dto.responses.LeaderboardEntryResponse;
+import com.paf.knowledgenest.dto.responses.UserSummary;
+import com.paf.knowledgenest.model.coins.CoinLedgerEntry;
+import com.paf.knowledgenest.model.user.User;
+import com.paf.knowledgenest.repository.user.UserRepository;
+import com.paf.knowledgenest.utils.RankedIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Global and weekly coin rankings held in memory, so top-N, rank-of-user and the window
+ * around a user are O(log n) lookups instead of sorts and count queries.
+ *
+ * The coin ledger writer applies every recorded award here as it applies the $inc. The
+ * global board is rebuilt from the userCoins index at startup and on a schedule (which
+ * also picks up balances repaired by reconciliation); the weekly board is rebuilt from
+ * the ledger and starts empty again each Monday.
+ *
+ * An award that lands while a rebuild is loading may or may not be in the fresh boards, so
+ * the users it touched are recorded and re-read from the database before the swap. Awards
+ * hold a shared lock from their $inc until they are applied here and the swap takes it
+ * exclusively, so no award is half-way between the two while those users are re-read.
+ */
+@Slf4j
+@Service
+public class CoinLeaderboardService {
+
+    public enum Period { GLOBAL, WEEKLY }
+
+    private final MongoTemplate mongoTemplate;
+    private final UserRepository userRepository;
+
+    // Guarded by this
+    private RankedIndex<String> global = new RankedIndex<>();
+    private RankedIndex<String> weekly = new RankedIndex<>();
+    private LocalDateTime weekStart = currentWeekStart();
+    // Users awarded or removed while a rebuild is loading; null when none is running
+    private Set<String> changedDuringRebuild;
+
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final Object rebuildLock = new Object();
+
+    public CoinLeaderboardService(MongoTemplate mongoTemplate, UserRepository userRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.userRepository = userRepository;
+    }
+
+    // Entries ranked offset+1 .. offset+limit
+    public List<LeaderboardEntryResponse> top(Period period, int offset, int limit) {
+        List<RankedIndex.Entry<String>> entries;
+        synchronized (this) {
+            entries = board(period).range(offset, limit);
+        }
+        return hydrate(entries, offset);
+    }
+
+    // The user's own entry, or null when they have no coins on this board
+    public LeaderboardEntryResponse rankOf(Period period, String userId) {
+        List<LeaderboardEntryResponse> window = around(period, userId, 0);
+        return window.isEmpty() ? null : window.get(0);
+    }
+
+    // The user's entry with up to radius neighbours on either side; empty when unranked
+    public List<LeaderboardEntryResponse> around(Period period, String userId, int radius) {
+        int from;
+        List<RankedIndex.Entry<String>> entries;
+        synchronized (this) {
+            RankedIndex<String> board = board(period);
+            int rank = board.rankOf(userId);
+            if (rank < 0) {
+                return List.of();
+            }
+            from = Math.max(0, rank - radius);
+            entries = board.range(from, rank - from + radius + 1);
+        }
+        return hydrate(entries, from);
+    }
+
+    // Called by the ledger writer: runs its balance $inc, then adds the same points here
+    public void applyAwards(Map<String, Integer> awarded, Runnable incrementBalances) {
+        swapLock.readLock().lock();
+        try {
+            incrementBalances.run();
+            applyAwards(awarded);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private synchronized void applyAwards(Map<String, Integer> awarded) {
+        rollWeekIfNeeded();
+        awarded.forEach((userId, points) -> {
+            global.add(userId, points);
+            weekly.add(userId, points);
+        });
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.addAll(awarded.keySet());
+        }
+    }
+
+    public synchronized void removeUser(String userId) {
+        global.remove(userId);
+        weekly.remove(userId);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(userId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${coins.leaderboard.rebuild-ms:3600000}",
+               initialDelayString = "${coins.leaderboard.rebuild-ms:3600000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                changedDuringRebuild = new HashSet<>();
+            }
+            try {
+                RankedIndex<String> freshGlobal = loadGlobal();
+                LocalDateTime freshWeekStart = currentWeekStart();
+                RankedIndex<String> freshWeekly = loadWeekly(freshWeekStart);
+
+                // Catch up unlocked first, so the exclusive pass below only has the stragglers
+                reload(takeChanged(), freshGlobal, freshWeekly, freshWeekStart);
+                swapLock.writeLock().lock();
+                try {
+                    reload(takeChanged(), freshGlobal, freshWeekly, freshWeekStart);
+                    synchronized (this) {
+                        global = freshGlobal;
+                        weekly = freshWeekly;
+                        weekStart = freshWeekStart;
+                        changedDuringRebuild = null;
+                    }
+                } finally {
+                    swapLock.writeLock().unlock();
+                }
+                log.info("CoinLeaderboardService: rebuilt {} global and {} weekly entries in {} ms",
+                        freshGlobal.size(), freshWeekly.size(), (System.nanoTime() - start) / 1_000_000);
+            } finally {
+                synchronized (this) {
+                    changedDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    private synchronized Set<String> takeChanged() {
+        Set<String> changed = changedDuringRebuild;
+        changedDuringRebuild = new HashSet<>();
+        return changed;
+    }
+
+    // Overwrites the fresh entries of these users with what the database holds now
+    private void reload(Set<String> userIds, RankedIndex<String> freshGlobal,
+                        RankedIndex<String> freshWeekly, LocalDateTime since) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Query query = Query.query(Criteria.where("_id").in(userIds));
+        query.fields().include("userCoins");
+        Map<String, Long> coins = new HashMap<>();
+        mongoTemplate.find(query, User.class).forEach(user ->
+                coins.put(user.getId(), user.getUserCoins() != null ? user.getUserCoins().longValue() : 0L));
+
+        Map<String, Long> earned = weeklyPoints(userIds, since);
+        for (String userId : userIds) {
+            putOrRemove(freshGlobal, userId, coins.getOrDefault(userId, 0L));
+            putOrRemove(freshWeekly, userId, earned.getOrDefault(userId, 0L));
+        }
+    }
+
+    private static void putOrRemove(RankedIndex<String> board, String userId, long score) {
+        if (score > 0) {
+            board.put(userId, score);
+        } else {
+            board.remove(userId);
+        }
+    }
+
+    // Walks the userCoins index from the top, reading only the balance
+    private RankedIndex<String> loadGlobal() {
+        Query query = Query.query(Criteria.where("userCoins").gt(0))
+                .with(Sort.by(Sort.Direction.DESC, "userCoins"));
+        query.fields().include("userCoins");
+
+        RankedIndex<String> index = new RankedIndex<>();
+        try (Stream<User> users = mongoTemplate.stream(query, User.class)) {
+            users.forEach(user -> index.put(user.getId(), user.getUserCoins()));
+        }
+        return index;
+    }
+
+    // Points awarded since weekStart, summed per user from the ledger
+    private RankedIndex<String> loadWeekly(LocalDateTime since) {
+        RankedIndex<String> index = new RankedIndex<>();
+        weeklyPoints(null, since).forEach((userId, points) -> {
+            if (points > 0) {
+                index.put(userId, points);
+            }
+        });
+        return index;
+    }
+
+    // For every user when userIds is null
+    private Map<String, Long> weeklyPoints(Set<String> userIds, LocalDateTime since) {
+        Criteria match = Criteria.where("createdAt").gte(since).and("reason").ne(CoinLedgerEntry.OPENING_BALANCE);
+        if (userIds != null) {
+            match = match.and("userId").in(userIds);
+        }
+        Aggregation earned = Aggregation.newAggregation(
+                Aggregation.match(match),
+                Aggregation.group("userId").sum("points").as("points"));
+
+        Map<String, Long> points = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(earned, CoinLedgerEntry.class, Document.class)) {
+            points.put(row.get("_id").toString(), ((Number) row.get("points")).longValue());
+        }
+        return points;
+    }
+
+    private void rollWeekIfNeeded() {
+        LocalDateTime current = currentWeekStart();
+        if (!current.equals(weekStart)) {
+            weekly = new RankedIndex<>();
+            weekStart = current;
+        }
+    }
+
+    private RankedIndex<String> board(Period period) {
+        if (period == Period.WEEKLY) {
+            rollWeekIfNeeded();
+            return weekly;
+        }
+        return global;
+    }
+
+    private static LocalDateTime currentWeekStart() {
+        return LocalDate.now().with(DayOfWeek.MONDAY).atStartOfDay();
+    }
+
+    // Names and pictures for one page, from a single projected $in
+    private List<LeaderboardEntryResponse> hydrate(List<RankedIndex.Entry<String>> entries, int offset) {
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+        Map<String, UserSummary> users = userRepository.findByIdIn(entries.stream().map(RankedIndex.Entry::key).toList()).stream()
+                .collect(Collectors.toMap(UserSummary::getId, Function.identity()));
+
+        return IntStream.range(0, entries.size())
+                .mapToObj(i -> {
+                    RankedIndex.Entry<String> entry = entries.get(i);
+                    UserSummary user = users.get(entry.key());
+                    return LeaderboardEntryResponse.builder()
+                            .rank(offset + i + 1)
+                            .userId(entry.key())
+                            .name(user != null ? user.getName() : null)
+                            .username(user != null ? user.getUsername() : null)
+                            .profilePic(user != null ? user.getProfilePic() : null)
+                            .coins(entry.score())
+                            .build();
+                })
+                .toList();
+    }
+}
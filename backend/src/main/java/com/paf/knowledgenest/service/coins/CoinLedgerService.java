@@ -0,0 +1,90 @@
+package com.paf.knowledgenest.service.coins;
+
+import com.paf.knowledgenest.enums.CoinType;
+import com.paf.knowledgenest.model.coins.CoinLedgerEntry;
+import com.paf.knowledgenest.model.user.User;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * Coin awards. Every award is an append-only ledger entry keyed by an idempotency key, so a
+ * retried request or a replayed event cannot pay out twice; the user's userCoins balance is a
+ * running total kept in step with atomic $inc and periodically recomputed from the ledger.
+ */
+@Slf4j
+@Service
+public class CoinLedgerService {
+
+    private static final int RECONCILE_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final CoinLedgerWriter writer;
+    private final long reconcileQuietMillis;
+
+    public CoinLedgerService(
+            MongoTemplate mongoTemplate,
+            CoinLedgerWriter writer,
+            @Value("${coins.reconcile.quiet-ms:300000}") long reconcileQuietMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.writer = writer;
+        this.reconcileQuietMillis = reconcileQuietMillis;
+    }
+
+    // Records the award once per idempotency key; the balance follows within a flush interval
+    public void award(String userId, CoinType coinType, String idempotencyKey) {
+        writer.enqueue(new CoinLedgerEntry(
+                coinType.name() + ":" + idempotencyKey,
+                userId,
+                coinType.name(),
+                coinType.getPoints(),
+                LocalDateTime.now()
+        ));
+    }
+
+    /**
+     * Overwrites drifted balances with the sum of the user's ledger entries. Users with an
+     * award in the last quiet period are skipped, since its $inc may still be in flight.
+     */
+    @Scheduled(fixedDelayString = "${coins.reconcile-ms:3600000}",
+               initialDelayString = "${coins.reconcile-initial-delay-ms:300000}")
+    public void reconcile() {
+        Date quietSince = new Date(System.currentTimeMillis() - reconcileQuietMillis);
+        Aggregation balances = Aggregation.newAggregation(
+                Aggregation.group("userId").sum("points").as("balance").max("createdAt").as("lastAwardAt"),
+                Aggregation.match(Criteria.where("lastAwardAt").lt(quietSince)));
+
+        BulkOperations repairs = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        int pending = 0;
+        long repaired = 0;
+        for (Document row : mongoTemplate.aggregate(balances, CoinLedgerEntry.class, Document.class)) {
+            int balance = ((Number) row.get("balance")).intValue();
+            repairs.updateOne(
+                    Query.query(Criteria.where("_id").is(row.get("_id")).and("userCoins").ne(balance)),
+                    new Update().set("userCoins", balance));
+            if (++pending == RECONCILE_BATCH_SIZE) {
+                repaired += repairs.execute().getModifiedCount();
+                repairs = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            repaired += repairs.execute().getModifiedCount();
+        }
+
+        if (repaired > 0) {
+            log.warn("CoinLedgerService: reconciled {} drifted coin balances", repaired);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.paf.knowledgenest.service.coins;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.paf.knowledgenest.model.coins.CoinLedgerEntry;
+import com.paf.knowledgenest.model.user.User;
+import com.paf.knowledgenest.utils.ParkedWriteStore;
+import com.paf.knowledgenest.utils.WriteRetryTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes coin awards in batches: one unordered insert of ledger entries, then one $inc per
+ * user for the entries that were actually inserted. Entries whose idempotency key is already
+ * in the ledger come back as duplicate-key errors and add nothing to the balance.
+ *
+ * Same shape as the notification dispatcher: a bounded queue drained by a background thread,
+ * with the caller writing its own award when the queue stays full. Also like the dispatcher,
+ * a failed ledger insert is retried with backoff and what is still unwritten after that is
+ * parked in ParkedWriteStore and replayed on a schedule, so an outage delays awards instead
+ * of dropping them. If the insert failed ambiguously, an entry that did land comes back as a
+ * duplicate on the retry and its balance is left to reconciliation.
+ */
+@Slf4j
+@Component
+public class CoinLedgerWriter {
+
+    static final String PARKED_KIND = "coin-awards";
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final CoinLeaderboardService leaderboardService;
+    private final WriteRetryTemplate retryTemplate;
+    private final ParkedWriteStore parkedWrites;
+    private final BlockingQueue<CoinLedgerEntry> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final long shutdownTimeoutMillis;
+
+    private final Counter awardedCounter;
+    private final Counter duplicateCounter;
+    private final Counter failedCounter;
+    private final Counter replayedCounter;
+
+    private Thread consumer;
+    private volatile boolean accepting = true;
+    private volatile long shutdownDeadline = Long.MAX_VALUE;
+
+    public CoinLedgerWriter(
+            MongoTemplate mongoTemplate,
+            CoinLeaderboardService leaderboardService,
+            WriteRetryTemplate retryTemplate,
+            ParkedWriteStore parkedWrites,
+            MeterRegistry meterRegistry,
+            @Value("${coins.ledger.capacity:10000}") int capacity,
+            @Value("${coins.ledger.batch-size:200}") int batchSize,
+            @Value("${coins.ledger.flush-interval-ms:50}") long flushIntervalMillis,
+            @Value("${coins.ledger.offer-timeout-ms:20}") long offerTimeoutMillis,
+            @Value("${coins.ledger.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.leaderboardService = leaderboardService;
+        this.retryTemplate = retryTemplate;
+        this.parkedWrites = parkedWrites;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+
+        Gauge.builder("coins.ledger.queue.depth", queue, BlockingQueue::size)
+                .description("Coin awards waiting to be written")
+                .register(meterRegistry);
+        this.awardedCounter = Counter.builder("coins.ledger.awarded")
+                .description("Coin awards recorded in the ledger")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("coins.ledger.duplicates")
+                .description("Coin awards ignored because their idempotency key was already recorded")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("coins.ledger.failed")
+                .description("Coin awards parked for replay after their write kept failing")
+                .register(meterRegistry);
+        this.replayedCounter = Counter.builder("coins.ledger.replayed")
+                .description("Parked coin awards recorded on replay")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        consumer = new Thread(this::consume, "coin-ledger-writer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    public void enqueue(CoinLedgerEntry entry) {
+        if (accepting) {
+            try {
+                if (queue.offer(entry, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Queue full or shutting down: write on the caller thread, which sees the failure if the
+        // award can be neither written nor parked
+        flush(List.of(entry), true);
+    }
+
+    private void consume() {
+        List<CoinLedgerEntry> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                CoinLedgerEntry first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch, false);
+            } catch (InterruptedException e) {
+                if (!accepting) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                log.error("CoinLedgerWriter: consumer failed on a batch of {}: {}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // callerWaits: throw if the batch can be neither written nor parked, instead of holding on to it
+    void flush(List<CoinLedgerEntry> batch, boolean callerWaits) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // A key repeated inside the batch is a duplicate too
+        Map<String, CoinLedgerEntry> unique = new LinkedHashMap<>();
+        for (CoinLedgerEntry entry : batch) {
+            unique.putIfAbsent(entry.getIdempotencyKey(), entry);
+        }
+        duplicateCounter.increment(batch.size() - unique.size());
+
+        Pending pending = new Pending(unique.values());
+        try {
+            retryTemplate.execute("recordCoinAwards", () -> insert(pending));
+        } catch (RuntimeException e) {
+            park(pending.remaining, e, callerWaits);
+        }
+        applyBalances(pending.recorded);
+    }
+
+    // Picks up batches parked by any instance
+    @Scheduled(fixedDelayString = "${coins.ledger.replay-ms:30000}",
+               initialDelayString = "${coins.ledger.replay-ms:30000}")
+    public void replayParked() {
+        Optional<ParkedWriteStore.Claimed<CoinLedgerEntry>> claimed;
+        while (accepting && (claimed = parkedWrites.claimDue(PARKED_KIND, CoinLedgerEntry.class)).isPresent()) {
+            Pending pending = new Pending(claimed.get().items());
+            try {
+                insert(pending);
+                parkedWrites.resolve(claimed.get().id());
+                replayedCounter.increment(pending.recorded.size());
+            } catch (RuntimeException e) {
+                log.warn("CoinLedgerWriter: replay of {} parked awards failed: {}", claimed.get().items().size(), e.getMessage());
+                retryParked(claimed.get(), pending, e);
+                return;
+            } finally {
+                applyBalances(pending.recorded);
+            }
+        }
+    }
+
+    // Moves every entry the ledger accepted, or already had, out of pending.remaining. Throws
+    // when any entry failed for another reason, leaving only those to retry.
+    private void insert(Pending pending) {
+        if (pending.remaining.isEmpty()) {
+            return;
+        }
+        List<CoinLedgerEntry> attempt = new ArrayList<>(pending.remaining);
+        Map<Integer, BulkWriteError> errors = new HashMap<>();
+        BulkOperationException failure = null;
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CoinLedgerEntry.class)
+                    .insert(attempt)
+                    .execute();
+        } catch (BulkOperationException e) {
+            failure = e;
+            e.getErrors().forEach(error -> errors.put(error.getIndex(), error));
+        }
+
+        pending.remaining.clear();
+        for (int i = 0; i < attempt.size(); i++) {
+            BulkWriteError error = errors.get(i);
+            if (error == null) {
+                pending.recorded.add(attempt.get(i));
+            } else if (error.getCode() == DUPLICATE_KEY) {
+                duplicateCounter.increment();
+            } else {
+                pending.remaining.add(attempt.get(i));
+            }
+        }
+        if (!pending.remaining.isEmpty()) {
+            throw failure;
+        }
+    }
+
+    // Sum what was recorded per user so each balance gets a single $inc
+    private void applyBalances(List<CoinLedgerEntry> recorded) {
+        if (recorded.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> increments = new HashMap<>();
+        for (CoinLedgerEntry entry : recorded) {
+            increments.merge(entry.getUserId(), entry.getPoints(), Integer::sum);
+        }
+
+        try {
+            BulkOperations balances = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+            increments.forEach((userId, points) -> balances.updateOne(
+                    Query.query(Criteria.where("_id").is(userId)), new Update().inc("userCoins", points)));
+            leaderboardService.applyAwards(increments, balances::execute);
+            awardedCounter.increment(recorded.size());
+        } catch (Exception e) {
+            // The entries are recorded; reconciliation brings the balances back in line. Not
+            // retried: an $inc that failed ambiguously may have been applied already.
+            log.error("CoinLedgerWriter: failed to apply balances for {} users: {}", increments.size(), e.getMessage());
+        }
+    }
+
+    private void park(List<CoinLedgerEntry> unwritten, RuntimeException cause, boolean callerWaits) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                parkedWrites.park(PARKED_KIND, unwritten, cause);
+                failedCounter.increment(unwritten.size());
+                log.error("CoinLedgerWriter: parked {} awards for replay: {}", unwritten.size(), cause.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                if (callerWaits) {
+                    throw new IllegalStateException("Coin award could not be recorded", cause);
+                }
+                if (System.currentTimeMillis() > shutdownDeadline) {
+                    log.error("CoinLedgerWriter: shutting down, {} awards could not be written or parked: {}",
+                            unwritten.size(), e.getMessage());
+                    return;
+                }
+                // Held by the consumer until it is safe; producers fall back to caller-runs meanwhile
+                retryTemplate.sleep(retryTemplate.backoffFor(attempt));
+            }
+        }
+    }
+
+    private void retryParked(ParkedWriteStore.Claimed<CoinLedgerEntry> claimed, Pending pending, RuntimeException cause) {
+        try {
+            if (pending.remaining.size() < claimed.items().size()) {
+                parkedWrites.park(PARKED_KIND, pending.remaining, cause);
+                parkedWrites.resolve(claimed.id());
+            } else {
+                parkedWrites.retryLater(claimed, cause);
+            }
+        } catch (RuntimeException e) {
+            // The lease runs out and the whole batch is claimed again; recorded entries come back as duplicates
+            log.warn("CoinLedgerWriter: could not update parked batch {}: {}", claimed.id(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        accepting = false;
+        shutdownDeadline = System.currentTimeMillis() + shutdownTimeoutMillis;
+        try {
+            consumer.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<CoinLedgerEntry> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int i = 0; i < remaining.size(); i += batchSize) {
+            flush(remaining.subList(i, Math.min(remaining.size(), i + batchSize)), false);
+        }
+        log.info("CoinLedgerWriter: drained, {} awards flushed on shutdown", remaining.size());
+    }
+
+    // A batch split into what is still to be inserted and what the ledger has accepted
+    private static final class Pending {
+        private final List<CoinLedgerEntry> remaining;
+        private final List<CoinLedgerEntry> recorded = new ArrayList<>();
+
+        Pending(Collection<CoinLedgerEntry> entries) {
+            this.remaining = new ArrayList<>(entries);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.paf.knowledgenest.service.notification;
+
+import com.paf.knowledgenest.model.notification.Notification;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Merges likes, comments and follows aimed at the same receiver and resource into a single
+ * notification ("Alice and 12 others liked your post") instead of one document per actor.
+ *
+ * A batch is first grouped in memory, then each group is applied with one upserting
+ * findAndModify against the open group document: still unread, above the user's read
+ * watermark and started within the coalescing window. The message itself is rendered at
+ * read time from actorId and actorCount.
+ *
+ * The open group holds a unique groupKey, so two consumers racing to open the same group
+ * collide on the index instead of creating duplicates; the loser retries and merges into
+ * the winner's document. A group that closed (read, or out of the window) gives up its key
+ * before a new one is opened. createdAt is the time the group opened and never moves;
+ * lastActivityAt follows the latest actor.
+ */
+@Component
+public class NotificationCoalescer {
+
+    private static final Set<Notification.NotificationType> COALESCED_TYPES = EnumSet.of(
+            Notification.NotificationType.LIKE,
+            Notification.NotificationType.COMMENT,
+            Notification.NotificationType.COMMENT_REPLY,
+            Notification.NotificationType.FOLLOW
+    );
+    private static final int MAX_OPEN_ATTEMPTS = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationCounterService notificationCounterService;
+    private final long windowMinutes;
+    private final int sampleSize;
+
+    public NotificationCoalescer(
+            MongoTemplate mongoTemplate,
+            NotificationCounterService notificationCounterService,
+            @Value("${notifications.coalesce.window-minutes:60}") long windowMinutes,
+            @Value("${notifications.coalesce.sample-actors:3}") int sampleSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.notificationCounterService = notificationCounterService;
+        this.windowMinutes = windowMinutes;
+        this.sampleSize = sampleSize;
+    }
+
+    public boolean isCoalesced(Notification notification) {
+        return notification.getUserId() != null && COALESCED_TYPES.contains(notification.getType());
+    }
+
+    /**
+     * Applies the notifications and adds the resulting documents to result, split into those
+     * that opened a new group and those that were folded into an existing one. Each group is
+     * taken out of pending once written, so after a failure pending holds exactly what is
+     * left and a retry does not apply a group twice.
+     */
+    public void apply(List<Notification> pending, Result result) {
+        Map<String, List<Notification>> groups = new LinkedHashMap<>();
+        for (Notification notification : pending) {
+            groups.computeIfAbsent(groupKey(notification), key -> new ArrayList<>()).add(notification);
+        }
+
+        Set<Notification> applied = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
+            for (List<Notification> group : groups.values()) {
+                Notification merged = upsertGroup(group);
+                applied.addAll(group);
+                if (merged == null) {
+                    continue;
+                }
+                if (Objects.equals(merged.getId(), group.get(0).getId())) {
+                    result.inserted.add(merged);
+                } else {
+                    result.merged.add(merged);
+                }
+            }
+        } finally {
+            pending.removeIf(applied::contains);
+        }
+    }
+
+    private Notification upsertGroup(List<Notification> group) {
+        Notification first = group.get(0);
+        Notification latest = group.get(group.size() - 1);
+        if (first.getId() == null) {
+            first.setId(new ObjectId().toHexString());
+        }
+
+        String key = groupKey(first);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowStart = now.minusMinutes(windowMinutes);
+        LocalDateTime lastReadAt = notificationCounterService.getLastReadAt(first.getUserId());
+
+        Criteria open = Criteria.where("groupKey").is(key)
+                .and("read").is(false)
+                .and("firstCreatedAt").gte(windowStart);
+        if (lastReadAt != null) {
+            open = open.and("createdAt").gt(lastReadAt);
+        }
+
+        List<Notification.ActorRef> actors = group.stream()
+                .map(n -> new Notification.ActorRef(n.getActorId(), null))
+                .toList();
+        LocalDateTime startedAt = first.getCreatedAt() != null ? first.getCreatedAt() : now;
+
+        Update update = new Update()
+                .setOnInsert("_id", first.getId())
+                .setOnInsert("userId", first.getUserId())
+                .setOnInsert("type", first.getType())
+                .setOnInsert("resourceId", first.getResourceId())
+                .setOnInsert("resourceType", first.getResourceType())
+                .setOnInsert("createdAt", startedAt)
+                .setOnInsert("firstCreatedAt", startedAt)
+                .inc("actorCount", group.size())
+                .set("actorId", latest.getActorId())
+                .set("commentId", latest.getCommentId())
+                .set("commentExcerpt", latest.getCommentExcerpt())
+                .set("lastActivityAt", latest.getCreatedAt() != null ? latest.getCreatedAt() : now);
+        update.push("sampleActors").slice(-sampleSize).each(actors.toArray());
+
+        for (int attempt = 1; ; attempt++) {
+            releaseClosedGroup(key, windowStart, lastReadAt);
+            try {
+                return mongoTemplate.findAndModify(
+                        Query.query(open),
+                        update,
+                        FindAndModifyOptions.options().upsert(true).returnNew(true),
+                        Notification.class
+                );
+            } catch (DuplicateKeyException e) {
+                // Another consumer opened the group first, or it closed between the release
+                // and the upsert; the next attempt merges into or releases it
+                if (attempt >= MAX_OPEN_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // A group that was read, left the window or fell below the watermark no longer takes new
+    // actors; free its key so the next event can open a fresh group
+    private void releaseClosedGroup(String key, LocalDateTime windowStart, LocalDateTime lastReadAt) {
+        List<Criteria> closed = new ArrayList<>(List.of(
+                Criteria.where("read").is(true),
+                Criteria.where("firstCreatedAt").lt(windowStart)));
+        if (lastReadAt != null) {
+            closed.add(Criteria.where("createdAt").lte(lastReadAt));
+        }
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("groupKey").is(key).orOperator(closed.toArray(new Criteria[0]))),
+                new Update().unset("groupKey"),
+                Notification.class);
+    }
+
+    private String groupKey(Notification notification) {
+        return notification.getUserId() + '|' + notification.getType() + '|' + notification.getResourceId();
+    }
+
+    public static class Result {
+        private final List<Notification> inserted = new ArrayList<>();
+        private final List<Notification> merged = new ArrayList<>();
+
+        public List<Notification> getInserted() {
+            return inserted;
+        }
+
+        public List<Notification> getMerged() {
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.paf.knowledgenest.service.notification;
+
+import com.paf.knowledgenest.model.notification.Notification;
+import com.paf.knowledgenest.model.notification.NotificationCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Per-user notification state (unread counter and read watermark), kept in the
+ * notification_counters collection and mirrored in a bounded in-memory LRU cache so reading
+ * a badge count needs no query at all.
+ *
+ * A notification is unread when read=false and it was created after the user's lastReadAt
+ * watermark, which makes "mark all as read" a single-document update.
+ *
+ * Every change is an atomic $inc that also bumps a revision number; the cache only accepts
+ * a value whose revision is newer than the one it holds, so out-of-order writers cannot
+ * leave a stale count behind. A periodic reconciliation recounts each counter from the
+ * notifications collection to repair any drift.
+ */
+@Slf4j
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class NotificationCounterService implements NotificationFlushListener {
+
+    private final MongoTemplate mongoTemplate;
+    private final Map<String, NotificationCounter> cache;
+
+    public NotificationCounterService(
+            MongoTemplate mongoTemplate,
+            @Value("${notifications.counters.cache-size:10000}") int cacheSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, NotificationCounter> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public long getUnreadCount(String userId) {
+        return Math.max(0, getState(userId).getUnread());
+    }
+
+    public LocalDateTime getLastReadAt(String userId) {
+        return getState(userId).getLastReadAt();
+    }
+
+    // True when the notification is still counted as unread for its receiver
+    public boolean isCountedUnread(Notification notification) {
+        if (notification.isRead() || notification.getUserId() == null) {
+            return false;
+        }
+        return isAfterWatermark(notification, peekLastReadAt(notification.getUserId()));
+    }
+
+    // O(1) "mark all as read": move the watermark and zero the counter
+    public void markAllRead(String userId) {
+        NotificationCounter updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(userId)),
+                new Update().set("lastReadAt", LocalDateTime.now())
+                        .set("unread", 0L)
+                        .inc("revision", 1),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                NotificationCounter.class
+        );
+        cachePut(updated);
+    }
+
+    private NotificationCounter getState(String userId) {
+        NotificationCounter cached = cacheGet(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        NotificationCounter counter = mongoTemplate.findById(userId, NotificationCounter.class);
+        if (counter == null) {
+            counter = seed(userId);
+        }
+        cachePut(counter);
+        return counter;
+    }
+
+    // Only ever $inc an existing counter. A missing one is seeded from a real count instead,
+    // which already includes the change being applied; upserting from zero would lose every
+    // notification that predates the counter and let a decrement go negative.
+    public void increment(String userId, long delta) {
+        if (userId == null || delta == 0) {
+            return;
+        }
+        NotificationCounter updated = applyIncrement(userId, delta);
+        if (updated == null) {
+            if (insertSeed(userId)) {
+                updated = mongoTemplate.findById(userId, NotificationCounter.class);
+            } else {
+                // Someone else created it between our $inc and the seed; it may predate our change
+                updated = applyIncrement(userId, delta);
+            }
+        }
+        cachePut(updated);
+    }
+
+    // Watermark lookup for callers about to change the counter. Unlike getState it does not seed
+    // a missing counter: a seed taken after the change already counts it, and the change would
+    // then be applied twice.
+    private LocalDateTime peekLastReadAt(String userId) {
+        NotificationCounter counter = cacheGet(userId);
+        if (counter == null) {
+            counter = mongoTemplate.findById(userId, NotificationCounter.class);
+            cachePut(counter);
+        }
+        return counter != null ? counter.getLastReadAt() : null;
+    }
+
+    private NotificationCounter applyIncrement(String userId, long delta) {
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(userId)),
+                new Update().inc("unread", delta).inc("revision", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                NotificationCounter.class
+        );
+    }
+
+    public void decrement(String userId, long delta) {
+        increment(userId, -delta);
+    }
+
+    // Drops the counter of a deleted user
+    public void remove(String userId) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(userId)), NotificationCounter.class);
+        synchronized (cache) {
+            cache.remove(userId);
+        }
+    }
+
+    @Override
+    public void onNotificationsStored(List<Notification> notifications) {
+        Map<String, List<Notification>> unreadByUser = notifications.stream()
+                .filter(n -> !n.isRead() && n.getUserId() != null)
+                .collect(Collectors.groupingBy(Notification::getUserId));
+
+        unreadByUser.forEach((userId, userNotifications) -> {
+            // A batch can land after the user already marked everything as read
+            LocalDateTime lastReadAt = peekLastReadAt(userId);
+            long unread = userNotifications.stream()
+                    .filter(n -> isAfterWatermark(n, lastReadAt))
+                    .count();
+            increment(userId, unread);
+        });
+    }
+
+    // Recount from the source of truth and repair drifted counters, one user at a time. Each
+    // repair only applies if the counter's revision is still the one read before counting, so
+    // an $inc or markAllRead that lands in between is kept and the user is checked next run.
+    @Scheduled(fixedDelayString = "${notifications.counters.reconcile-ms:3600000}",
+               initialDelayString = "${notifications.counters.reconcile-initial-delay-ms:60000}")
+    public void reconcile() {
+        Query all = new Query();
+        all.fields().include("unread").include("revision").include("lastReadAt");
+        long repaired = 0;
+        long skipped = 0;
+        try (Stream<NotificationCounter> counters = mongoTemplate.stream(all, NotificationCounter.class)) {
+            for (NotificationCounter counter : (Iterable<NotificationCounter>) counters::iterator) {
+                long actual = countUnread(counter.getUserId(), counter.getLastReadAt());
+                if (actual == counter.getUnread()) {
+                    continue;
+                }
+                NotificationCounter updated = mongoTemplate.findAndModify(
+                        Query.query(Criteria.where("_id").is(counter.getUserId()).and("revision").is(counter.getRevision())),
+                        new Update().set("unread", actual).inc("revision", 1).set("reconciledAt", LocalDateTime.now()),
+                        FindAndModifyOptions.options().returnNew(true),
+                        NotificationCounter.class);
+                if (updated != null) {
+                    cachePut(updated);
+                    repaired++;
+                } else {
+                    skipped++;
+                }
+            }
+        }
+        log.info("NotificationCounterService: repaired {} unread counters, {} changed while counting", repaired, skipped);
+    }
+
+    // Uses the userId/read/createdAt index
+    private long countUnread(String userId, LocalDateTime lastReadAt) {
+        Criteria unread = Criteria.where("userId").is(userId).and("read").is(false);
+        if (lastReadAt != null) {
+            unread.and("createdAt").gt(lastReadAt);
+        }
+        return mongoTemplate.count(Query.query(unread), Notification.class);
+    }
+
+    private boolean isAfterWatermark(Notification notification, LocalDateTime lastReadAt) {
+        return lastReadAt == null
+                || notification.getCreatedAt() == null
+                || notification.getCreatedAt().isAfter(lastReadAt);
+    }
+
+    private NotificationCounter seed(String userId) {
+        insertSeed(userId);
+        return mongoTemplate.findById(userId, NotificationCounter.class);
+    }
+
+    // Creates the counter from a real count; false when it already existed
+    private boolean insertSeed(String userId) {
+        long unread = mongoTemplate.count(
+                Query.query(Criteria.where("userId").is(userId).and("read").is(false)), Notification.class);
+        // $setOnInsert: if a concurrent writer created the counter first, keep that one.
+        // Returning the old document tells us which happened: none means we inserted it.
+        NotificationCounter previous = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(userId)),
+                new Update().setOnInsert("unread", unread)
+                        .setOnInsert("revision", 0L)
+                        .setOnInsert("reconciledAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().upsert(true).returnNew(false),
+                NotificationCounter.class
+        );
+        return previous == null;
+    }
+
+    private NotificationCounter cacheGet(String userId) {
+        synchronized (cache) {
+            return cache.get(userId);
+        }
+    }
+
+    private void cachePut(NotificationCounter counter) {
+        if (counter == null) {
+            return;
+        }
+        synchronized (cache) {
+            NotificationCounter current = cache.get(counter.getUserId());
+            if (current == null || current.getRevision() < counter.getRevision()) {
+                cache.put(counter.getUserId(), counter);
+            }
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.paf.knowledgenest.service.notification;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.paf.knowledgenest.model.notification.Notification;
+import com.paf.knowledgenest.utils.ParkedWriteStore;
+import com.paf.knowledgenest.utils.WriteRetryTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes notification writes off the request thread. Notifications are queued in a bounded
+ * buffer and written by background consumers with one insertMany per batch.
+ *
+ * When the buffer stays full for longer than the offer timeout, the caller writes its own
+ * notification synchronously (caller-runs), which slows producers down instead of dropping data.
+ *
+ * A batch that fails is retried with backoff. Whatever is still unwritten after that is
+ * parked in ParkedWriteStore and replayed on a schedule. Only when parking fails too does
+ * the failure reach the caller (caller-runs), or does the consumer hold on to the batch and
+ * keep trying to park it.
+ */
+@Slf4j
+@Component
+public class NotificationDispatcher {
+
+    static final String PARKED_KIND = "notifications";
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationCoalescer coalescer;
+    private final NotificationIdempotencyGuard idempotencyGuard;
+    private final ObjectProvider<NotificationFlushListener> flushListeners;
+    private final WriteRetryTemplate retryTemplate;
+    private final ParkedWriteStore parkedWrites;
+    private final BlockingQueue<Notification> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final long shutdownTimeoutMillis;
+    private final int consumerCount;
+
+    private final Timer flushTimer;
+    private final Counter flushedCounter;
+    private final Counter backpressureCounter;
+    private final Counter failedCounter;
+    private final Counter replayedCounter;
+
+    private final List<Thread> consumers = new ArrayList<>();
+    private volatile boolean accepting = true;
+    private volatile long shutdownDeadline = Long.MAX_VALUE;
+
+    public NotificationDispatcher(
+            MongoTemplate mongoTemplate,
+            NotificationCoalescer coalescer,
+            NotificationIdempotencyGuard idempotencyGuard,
+            ObjectProvider<NotificationFlushListener> flushListeners,
+            WriteRetryTemplate retryTemplate,
+            ParkedWriteStore parkedWrites,
+            MeterRegistry meterRegistry,
+            @Value("${notifications.dispatcher.capacity:10000}") int capacity,
+            @Value("${notifications.dispatcher.batch-size:200}") int batchSize,
+            @Value("${notifications.dispatcher.flush-interval-ms:50}") long flushIntervalMillis,
+            @Value("${notifications.dispatcher.offer-timeout-ms:20}") long offerTimeoutMillis,
+            @Value("${notifications.dispatcher.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis,
+            @Value("${notifications.dispatcher.consumers:2}") int consumerCount) {
+        this.mongoTemplate = mongoTemplate;
+        this.coalescer = coalescer;
+        this.idempotencyGuard = idempotencyGuard;
+        this.flushListeners = flushListeners;
+        this.retryTemplate = retryTemplate;
+        this.parkedWrites = parkedWrites;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.consumerCount = consumerCount;
+
+        Gauge.builder("notifications.queue.depth", queue, BlockingQueue::size)
+                .description("Notifications waiting to be written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("notifications.flush.latency")
+                .description("Time taken to write one batch of notifications")
+                .register(meterRegistry);
+        this.flushedCounter = Counter.builder("notifications.flushed")
+                .description("Notifications written by the dispatcher")
+                .register(meterRegistry);
+        this.backpressureCounter = Counter.builder("notifications.backpressure")
+                .description("Notifications written on the caller thread because the queue was full")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("notifications.flush.failed")
+                .description("Notifications parked for replay after their write kept failing")
+                .register(meterRegistry);
+        this.replayedCounter = Counter.builder("notifications.replayed")
+                .description("Parked notifications written on replay")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        for (int i = 0; i < consumerCount; i++) {
+            Thread consumer = new Thread(this::consume, "notification-writer-" + i);
+            consumer.setDaemon(true);
+            consumer.start();
+            consumers.add(consumer);
+        }
+    }
+
+    public void enqueue(Notification notification) {
+        if (accepting) {
+            try {
+                if (queue.offer(notification, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            backpressureCounter.increment();
+        }
+        // Queue full or shutting down: write on the caller thread, which sees the failure if the
+        // notification can be neither written nor parked
+        flush(List.of(notification), true);
+    }
+
+    private void consume() {
+        List<Notification> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                Notification first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch, false);
+            } catch (InterruptedException e) {
+                if (!accepting) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                log.error("NotificationDispatcher: consumer failed on a batch of {}: {}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // callerWaits: throw if the batch can be neither written nor parked, instead of holding on to it
+    void flush(List<Notification> batch, boolean callerWaits) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<Notification> admitted;
+        try {
+            // Repeats of a recent (receiver, actor, type, resource) emission are dropped here
+            admitted = retryTemplate.execute("claimNotificationKeys", () -> idempotencyGuard.claim(batch));
+        } catch (RuntimeException e) {
+            // A possible duplicate like is better than a lost notification
+            log.warn("NotificationDispatcher: idempotency check unavailable, writing {} notifications unchecked: {}",
+                    batch.size(), e.getMessage());
+            admitted = batch;
+        }
+
+        Pending pending = new Pending(admitted);
+        try {
+            retryTemplate.execute("flushNotifications", () -> write(pending));
+            flushedCounter.increment(admitted.size());
+        } catch (RuntimeException e) {
+            park(pending.unwritten(), e, callerWaits);
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        notifyListeners(pending.stored, pending.result.getMerged());
+    }
+
+    // Picks up batches parked by any instance; their idempotency keys are still held
+    @Scheduled(fixedDelayString = "${notifications.dispatcher.replay-ms:30000}",
+               initialDelayString = "${notifications.dispatcher.replay-ms:30000}")
+    public void replayParked() {
+        Optional<ParkedWriteStore.Claimed<Notification>> claimed;
+        while (accepting && (claimed = parkedWrites.claimDue(PARKED_KIND, Notification.class)).isPresent()) {
+            Pending pending = new Pending(claimed.get().items());
+            try {
+                write(pending);
+                parkedWrites.resolve(claimed.get().id());
+                replayedCounter.increment(claimed.get().items().size());
+            } catch (RuntimeException e) {
+                log.warn("NotificationDispatcher: replay of {} parked notifications failed: {}",
+                        claimed.get().items().size(), e.getMessage());
+                // What did get written is not written again; only the rest stays parked
+                retryParked(claimed.get(), pending, e);
+                return;
+            } finally {
+                notifyListeners(pending.stored, pending.result.getMerged());
+            }
+        }
+    }
+
+    // Plain notifications carry their id from the first attempt, so a retry after a partial
+    // insert gets duplicate-key errors for those instead of writing them twice
+    private void write(Pending pending) {
+        if (!pending.plain.isEmpty()) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class)
+                        .insert(pending.plain)
+                        .execute();
+            } catch (BulkOperationException e) {
+                for (BulkWriteError error : e.getErrors()) {
+                    if (error.getCode() != DUPLICATE_KEY) {
+                        throw e;
+                    }
+                }
+            }
+            pending.stored.addAll(pending.plain);
+            pending.plain.clear();
+        }
+        if (!pending.coalesced.isEmpty()) {
+            int before = pending.result.getInserted().size();
+            try {
+                coalescer.apply(pending.coalesced, pending.result);
+            } finally {
+                pending.stored.addAll(pending.result.getInserted().subList(before, pending.result.getInserted().size()));
+            }
+        }
+    }
+
+    private void park(List<Notification> unwritten, RuntimeException cause, boolean callerWaits) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                parkedWrites.park(PARKED_KIND, unwritten, cause);
+                failedCounter.increment(unwritten.size());
+                log.error("NotificationDispatcher: parked {} notifications for replay: {}", unwritten.size(), cause.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                if (callerWaits) {
+                    releaseKeys(unwritten);
+                    throw new IllegalStateException("Notification could not be written", cause);
+                }
+                if (System.currentTimeMillis() > shutdownDeadline) {
+                    log.error("NotificationDispatcher: shutting down, {} notifications could not be written or parked: {}",
+                            unwritten.size(), e.getMessage());
+                    releaseKeys(unwritten);
+                    return;
+                }
+                // The consumer holds the batch until it is safe; the queue fills up meanwhile and
+                // producers fall back to caller-runs, which does report the failure
+                retryTemplate.sleep(retryTemplate.backoffFor(attempt));
+            }
+        }
+    }
+
+    // Nothing was stored for these, so a retry of the same action must not be dropped as a repeat
+    private void releaseKeys(List<Notification> unwritten) {
+        try {
+            idempotencyGuard.release(unwritten);
+        } catch (RuntimeException e) {
+            // The keys expire on their own; until then a repeat is dropped as a duplicate
+            log.warn("NotificationDispatcher: could not release {} idempotency keys: {}", unwritten.size(), e.getMessage());
+        }
+    }
+
+    private void retryParked(ParkedWriteStore.Claimed<Notification> claimed, Pending pending, RuntimeException cause) {
+        try {
+            List<Notification> unwritten = pending.unwritten();
+            if (unwritten.size() < claimed.items().size()) {
+                parkedWrites.park(PARKED_KIND, unwritten, cause);
+                parkedWrites.resolve(claimed.id());
+            } else {
+                parkedWrites.retryLater(claimed, cause);
+            }
+        } catch (RuntimeException e) {
+            // The lease runs out and the whole batch is claimed again; written items come back as duplicates
+            log.warn("NotificationDispatcher: could not update parked batch {}: {}", claimed.id(), e.getMessage());
+        }
+    }
+
+    private void notifyListeners(List<Notification> stored, List<Notification> merged) {
+        flushListeners.orderedStream().forEach(listener -> {
+            try {
+                if (!stored.isEmpty()) {
+                    listener.onNotificationsStored(stored);
+                }
+                if (!merged.isEmpty()) {
+                    listener.onNotificationsMerged(merged);
+                }
+            } catch (Exception e) {
+                log.error("NotificationDispatcher: listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        accepting = false;
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMillis;
+        shutdownDeadline = deadline;
+        for (Thread consumer : consumers) {
+            try {
+                consumer.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // Whatever the consumers did not get to in time is written here
+        List<Notification> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int i = 0; i < remaining.size(); i += batchSize) {
+            flush(remaining.subList(i, Math.min(remaining.size(), i + batchSize)), false);
+        }
+        log.info("NotificationDispatcher: drained, {} notifications flushed on shutdown", remaining.size());
+    }
+
+    // A batch split into what is still to be written and what has been written so far
+    private final class Pending {
+        private final List<Notification> plain = new ArrayList<>();
+        private final List<Notification> coalesced = new ArrayList<>();
+        private final List<Notification> stored = new ArrayList<>();
+        private final NotificationCoalescer.Result result = new NotificationCoalescer.Result();
+
+        Pending(List<Notification> notifications) {
+            for (Notification notification : notifications) {
+                if (coalescer.isCoalesced(notification)) {
+                    coalesced.add(notification);
+                } else {
+                    if (notification.getId() == null) {
+                        notification.setId(new ObjectId().toHexString());
+                    }
+                    plain.add(notification);
+                }
+            }
+        }
+
+        List<Notification> unwritten() {
+            List<Notification> unwritten = new ArrayList<>(plain);
+            unwritten.addAll(coalesced);
+            return unwritten;
+        }
+    }
+}
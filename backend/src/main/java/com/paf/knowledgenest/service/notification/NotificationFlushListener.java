@@ -0,0 +1,16 @@
+package com.paf.knowledgenest.service.notification;
+
+import com.paf.knowledgenest.model.notification.Notification;
+
+import java.util.List;
+
+// Called by NotificationDispatcher after a batch of notifications has been persisted
+public interface NotificationFlushListener {
+
+    // New documents (plain inserts and newly opened coalescing groups)
+    void onNotificationsStored(List<Notification> notifications);
+
+    // Existing coalesced documents that absorbed more actors; already counted as unread
+    default void onNotificationsMerged(List<Notification> notifications) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.paf.knowledgenest.service.notification;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.paf.knowledgenest.model.notification.Notification;
+import com.paf.knowledgenest.model.notification.NotificationKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Drops repeated emissions of the same (receiver, actor, type, resource) notification within
+ * a window, so toggling a like on and off cannot flood the post owner's inbox.
+ *
+ * Two layers: a bounded in-memory cache of recently seen keys rejects duplicates on the
+ * request thread before they are queued, and the notification_keys collection (key as _id,
+ * TTL on expireAt) settles it for the whole cluster when the dispatcher writes a batch.
+ */
+@Component
+public class NotificationIdempotencyGuard {
+
+    private static final Set<Notification.NotificationType> IDEMPOTENT_TYPES =
+            EnumSet.of(Notification.NotificationType.LIKE);
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final long windowMillis;
+    private final Map<String, Long> recentKeys;
+    private final Counter droppedCounter;
+
+    public NotificationIdempotencyGuard(
+            MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${notifications.idempotency.window-minutes:1440}") long windowMinutes,
+            @Value("${notifications.idempotency.cache-size:50000}") int cacheSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.windowMillis = windowMinutes * 60_000L;
+        this.recentKeys = new LinkedHashMap<>(1024, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.droppedCounter = Counter.builder("notifications.duplicates.dropped")
+                .description("Notifications dropped as repeats of a recent emission")
+                .register(meterRegistry);
+    }
+
+    public boolean isIdempotent(Notification notification) {
+        return IDEMPOTENT_TYPES.contains(notification.getType()) && notification.getActorId() != null;
+    }
+
+    // Request-thread check; false means this node already emitted the same key recently
+    public boolean admit(Notification notification) {
+        if (!isIdempotent(notification)) {
+            return true;
+        }
+        String key = keyOf(notification);
+        long now = System.currentTimeMillis();
+        synchronized (recentKeys) {
+            Long expiresAt = recentKeys.get(key);
+            if (expiresAt != null && expiresAt > now) {
+                droppedCounter.increment();
+                return false;
+            }
+            recentKeys.put(key, now + windowMillis);
+        }
+        return true;
+    }
+
+    /**
+     * Claims the keys of a batch with one unordered insert and returns the notifications whose
+     * claim succeeded. Keys already held (by another node, or from before a restart) come back
+     * as duplicate-key errors and their notifications are dropped.
+     */
+    public List<Notification> claim(List<Notification> notifications) {
+        List<Notification> keyed = new ArrayList<>();
+        List<NotificationKey> claims = new ArrayList<>();
+        Set<String> batchKeys = new HashSet<>();
+        List<Notification> admitted = new ArrayList<>(notifications.size());
+
+        LocalDateTime expireAt = LocalDateTime.now().plus(windowMillis, ChronoUnit.MILLIS);
+        for (Notification notification : notifications) {
+            if (!isIdempotent(notification)) {
+                admitted.add(notification);
+                continue;
+            }
+            String key = keyOf(notification);
+            if (!batchKeys.add(key)) {
+                droppedCounter.increment();
+                continue;
+            }
+            keyed.add(notification);
+            claims.add(new NotificationKey(key, expireAt));
+        }
+        if (claims.isEmpty()) {
+            return admitted;
+        }
+
+        Set<Integer> rejected = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NotificationKey.class)
+                    .insert(claims)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() == DUPLICATE_KEY) {
+                    rejected.add(error.getIndex());
+                }
+            }
+            if (rejected.size() < e.getErrors().size()) {
+                // Give back what this attempt may have inserted, so a retry does not find
+                // its own keys and drop their notifications as repeats
+                forgetClaims(claims, rejected);
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            forgetClaims(claims, rejected);
+            throw e;
+        }
+
+        for (int i = 0; i < keyed.size(); i++) {
+            if (rejected.contains(i)) {
+                droppedCounter.increment();
+            } else {
+                admitted.add(keyed.get(i));
+            }
+        }
+        return admitted;
+    }
+
+    // Gives the keys back when the notifications they were claimed for could not be written
+    public void release(List<Notification> notifications) {
+        List<String> keys = notifications.stream()
+                .filter(this::isIdempotent)
+                .map(this::keyOf)
+                .collect(Collectors.toList());
+        if (keys.isEmpty()) {
+            return;
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(keys)), NotificationKey.class);
+        synchronized (recentKeys) {
+            keys.forEach(recentKeys::remove);
+        }
+    }
+
+    private void forgetClaims(List<NotificationKey> claims, Set<Integer> heldElsewhere) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < claims.size(); i++) {
+            if (!heldElsewhere.contains(i)) {
+                keys.add(claims.get(i).getKey());
+            }
+        }
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(keys)), NotificationKey.class);
+        } catch (RuntimeException e) {
+            // The keys expire on their own; until then a repeat is dropped as a duplicate
+        }
+    }
+
+    private String keyOf(Notification notification) {
+        return notification.getUserId() + '|' + notification.getActorId() + '|'
+                + notification.getType() + '|' + notification.getResourceId();
+    }
+}
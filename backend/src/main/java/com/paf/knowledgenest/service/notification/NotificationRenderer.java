@@ -0,0 +1,195 @@
+package com.paf.knowledgenest.service.notification;
+
+import com.paf.knowledgenest.dto.notification.NotificationDto;
+import com.paf.knowledgenest.model.notification.Notification;
+import com.paf.knowledgenest.model.skillpost.Comment;
+import com.paf.knowledgenest.model.skillpost.SkillPost;
+import com.paf.knowledgenest.model.user.User;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Builds notification messages at read time. Notifications store their type and the ids they
+ * refer to (actors, post, comment); current actor names and post titles are fetched with one
+ * batched $in query per collection for the whole page and poured into precompiled templates,
+ * so titles and names are never stale. Comment excerpts are stored on the notification when
+ * it is created, since loading a post's comments to quote one of them is far too much data.
+ */
+@Component
+public class NotificationRenderer {
+
+    private static final Map<Notification.NotificationType, NotificationTemplate> TEMPLATES =
+            new EnumMap<>(Notification.NotificationType.class);
+
+    static {
+        TEMPLATES.put(Notification.NotificationType.LIKE,
+                NotificationTemplate.compile("{actors} liked your post: {postTitle}"));
+        TEMPLATES.put(Notification.NotificationType.COMMENT,
+                NotificationTemplate.compile("{actors} commented on your post: \"{excerpt}\""));
+        TEMPLATES.put(Notification.NotificationType.COMMENT_REPLY,
+                NotificationTemplate.compile("{actors} replied to your comment on \"{postTitle}\": \"{excerpt}\""));
+        TEMPLATES.put(Notification.NotificationType.FOLLOW,
+                NotificationTemplate.compile("{actors} started following you"));
+        TEMPLATES.put(Notification.NotificationType.UNFOLLOW,
+                NotificationTemplate.compile("{actors} unfollowed you"));
+    }
+
+    // Types whose message quotes a comment
+    private static final Set<Notification.NotificationType> EXCERPT_TYPES = EnumSet.of(
+            Notification.NotificationType.COMMENT,
+            Notification.NotificationType.COMMENT_REPLY
+    );
+
+    private static final int EXCERPT_LENGTH = 50;
+
+    private final MongoTemplate mongoTemplate;
+
+    public NotificationRenderer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public NotificationDto.Response render(Notification notification, LocalDateTime lastReadAt) {
+        return render(List.of(notification), lastReadAt).get(0);
+    }
+
+    public List<NotificationDto.Response> render(List<Notification> notifications, LocalDateTime lastReadAt) {
+        Map<String, String> actorNames = lookupActorNames(notifications);
+        Map<String, SkillPost> posts = lookupPosts(notifications);
+
+        return notifications.stream()
+                .map(notification -> {
+                    NotificationDto.Response response = NotificationDto.Response.fromNotification(notification, lastReadAt);
+                    String actorName = actorNames.getOrDefault(notification.getActorId(), notification.getActorName());
+                    response.setActorName(actorName);
+                    response.setSampleActors(withNames(notification.getSampleActors(), actorNames));
+                    response.setMessage(renderMessage(notification, actorName, posts.get(notification.getResourceId())));
+                    return response;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private String renderMessage(Notification notification, String actorName, SkillPost post) {
+        NotificationTemplate template = TEMPLATES.get(notification.getType());
+        // System notifications (and anything without an actor) keep their stored text
+        if (template == null || notification.getActorId() == null) {
+            return notification.getMessage();
+        }
+
+        Map<String, String> values = new HashMap<>(4);
+        values.put("actors", actors(actorName, notification.getActorCount()));
+        values.put("postTitle", post != null ? post.getTitle() : "a deleted post");
+        if (EXCERPT_TYPES.contains(notification.getType())) {
+            String excerpt = notification.getCommentExcerpt();
+            if (excerpt == null) {
+                // Created before excerpts were stored
+                Comment comment = post != null ? findComment(post.getComments(), notification.getCommentId()) : null;
+                excerpt = comment != null ? excerpt(comment.getContent()) : null;
+            }
+            values.put("excerpt", excerpt != null ? excerpt : "");
+        }
+        return template.render(values);
+    }
+
+    private String actors(String actorName, int actorCount) {
+        String name = actorName != null ? actorName : "Someone";
+        int others = actorCount - 1;
+        if (others < 1) {
+            return name;
+        }
+        return name + " and " + others + (others == 1 ? " other" : " others");
+    }
+
+    // Copies: the same notification objects are handed to every flush listener
+    private List<Notification.ActorRef> withNames(List<Notification.ActorRef> actors, Map<String, String> actorNames) {
+        if (actors == null) {
+            return List.of();
+        }
+        return actors.stream()
+                .map(actor -> new Notification.ActorRef(actor.getActorId(),
+                        actorNames.getOrDefault(actor.getActorId(), actor.getActorName())))
+                .toList();
+    }
+
+    static String excerpt(String content) {
+        if (content == null) {
+            return null;
+        }
+        return content.length() > EXCERPT_LENGTH ? content.substring(0, EXCERPT_LENGTH - 3) + "..." : content;
+    }
+
+    private Map<String, String> lookupActorNames(Collection<Notification> notifications) {
+        // The sample actors ride along in the same $in
+        Set<String> actorIds = new HashSet<>();
+        for (Notification notification : notifications) {
+            actorIds.add(notification.getActorId());
+            if (notification.getSampleActors() != null) {
+                notification.getSampleActors().forEach(actor -> actorIds.add(actor.getActorId()));
+            }
+        }
+        actorIds.remove(null);
+        if (actorIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Query query = Query.query(Criteria.where("_id").in(actorIds));
+        query.fields().include("name");
+        return mongoTemplate.find(query, User.class).stream()
+                .filter(user -> user.getName() != null)
+                .collect(Collectors.toMap(User::getId, User::getName));
+    }
+
+    private Map<String, SkillPost> lookupPosts(Collection<Notification> notifications) {
+        Set<String> titleOnly = new HashSet<>();
+        Set<String> withComments = new HashSet<>();
+        for (Notification notification : notifications) {
+            if (notification.getResourceId() == null || !"SKILL_POST".equals(notification.getResourceType())) {
+                continue;
+            }
+            boolean needsComments = EXCERPT_TYPES.contains(notification.getType()) && notification.getCommentExcerpt() == null;
+            (needsComments ? withComments : titleOnly).add(notification.getResourceId());
+        }
+        titleOnly.removeAll(withComments);
+
+        Map<String, SkillPost> posts = new HashMap<>();
+        if (!titleOnly.isEmpty()) {
+            Query query = Query.query(Criteria.where("_id").in(titleOnly));
+            query.fields().include("title");
+            mongoTemplate.find(query, SkillPost.class).forEach(post -> posts.put(post.getId(), post));
+        }
+        if (!withComments.isEmpty()) {
+            Query query = Query.query(Criteria.where("_id").in(withComments));
+            query.fields().include("title").include("comments");
+            mongoTemplate.find(query, SkillPost.class).forEach(post -> posts.put(post.getId(), post));
+        }
+        return posts;
+    }
+
+    private Comment findComment(List<Comment> comments, String commentId) {
+        if (comments == null || commentId == null) {
+            return null;
+        }
+        for (Comment comment : comments) {
+            if (commentId.equals(comment.getId())) {
+                return comment;
+            }
+            Comment reply = findComment(comment.getReplies(), commentId);
+            if (reply != null) {
+                return reply;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,151 @@
+package com.paf.knowledgenest.service.notification;
+
+import com.paf.knowledgenest.config.NotificationRetentionProperties;
+import com.paf.knowledgenest.model.notification.Notification;
+import com.paf.knowledgenest.model.notification.NotificationCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the notifications collection bounded.
+ *
+ * Read notifications get an expireAt (read time + per-type TTL) and are deleted by the TTL
+ * index on that field. Notifications read through the lastReadAt watermark are never touched
+ * by "mark all as read", so they are stamped here in bulk afterwards. Optionally, unread
+ * notifications older than archiveAfter are moved to notifications_archive in batches.
+ */
+@Slf4j
+@Service
+public class NotificationRetentionService {
+
+    static final String ARCHIVE_COLLECTION = "notifications_archive";
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationRetentionProperties properties;
+    private final NotificationCounterService notificationCounterService;
+
+    public NotificationRetentionService(MongoTemplate mongoTemplate,
+                                        NotificationRetentionProperties properties,
+                                        NotificationCounterService notificationCounterService) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.notificationCounterService = notificationCounterService;
+    }
+
+    public LocalDateTime expireAtFor(Notification.NotificationType type, LocalDateTime readAt) {
+        return readAt.plus(properties.ttlFor(type));
+    }
+
+    // expireAtFor evaluated inside an update against the document's own type, so a single
+    // write can mark a notification read without reading its type first
+    public AggregationExpression expireAtExpression(LocalDateTime readAt) {
+        List<ConditionalOperators.Switch.CaseOperator> cases = Arrays.stream(Notification.NotificationType.values())
+                .map(type -> ConditionalOperators.Switch.CaseOperator
+                        .when(ComparisonOperators.valueOf("type").equalToValue(type.name()))
+                        .then(toDate(expireAtFor(type, readAt))))
+                .toList();
+        return ConditionalOperators.switchCases(cases).defaultTo(toDate(expireAtFor(null, readAt)));
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    // Give every notification hidden by a moved watermark its expiry, one updateMulti per type
+    @Scheduled(fixedDelayString = "${notifications.retention.stamp-interval-ms:600000}",
+               initialDelayString = "${notifications.retention.stamp-initial-delay-ms:120000}")
+    public void stampWatermarkedNotifications() {
+        // Users whose watermark moved since the last stamping
+        Query pending = new BasicQuery(new Document("lastReadAt", new Document("$ne", null))
+                .append("$or", List.of(
+                        new Document("expiryStampedAt", null),
+                        new Document("$expr", new Document("$lt", List.of("$expiryStampedAt", "$lastReadAt")))
+                )));
+
+        List<NotificationCounter> states = mongoTemplate.find(pending, NotificationCounter.class);
+        for (NotificationCounter state : states) {
+            LocalDateTime lastReadAt = state.getLastReadAt();
+            for (Notification.NotificationType type : Notification.NotificationType.values()) {
+                mongoTemplate.updateMulti(
+                        Query.query(Criteria.where("userId").is(state.getUserId())
+                                .and("type").is(type)
+                                .and("createdAt").lte(lastReadAt)
+                                .and("expireAt").is(null)),
+                        new Update().set("expireAt", expireAtFor(type, lastReadAt)),
+                        Notification.class
+                );
+            }
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(state.getUserId())),
+                    new Update().set("expiryStampedAt", lastReadAt),
+                    NotificationCounter.class
+            );
+        }
+        if (!states.isEmpty()) {
+            log.info("NotificationRetentionService: stamped expiry for {} users", states.size());
+        }
+    }
+
+    // Moves stale notifications that never got an expiry (unread, or read before retention
+    // existed) out of the hot collection, in bounded batches
+    @Scheduled(cron = "${notifications.retention.archive-cron:0 30 3 * * *}")
+    public void archiveStaleNotifications() {
+        if (!properties.isArchiveEnabled()) {
+            return;
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getArchiveAfter());
+        int archived = 0;
+        for (int batchNo = 0; batchNo < properties.getArchiveMaxBatchesPerRun(); batchNo++) {
+            Query query = Query.query(Criteria.where("createdAt").lt(cutoff).and("expireAt").is(null))
+                    .with(Sort.by(Sort.Direction.ASC, "createdAt"))
+                    .limit(properties.getArchiveBatchSize());
+            List<Notification> batch = mongoTemplate.find(query, Notification.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            // Copy first, then delete. A crash in between leaves the batch in both collections;
+            // the next run selects it again and the copy, replacing by _id, simply overwrites it.
+            BulkOperations copy = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class, ARCHIVE_COLLECTION);
+            for (Notification notification : batch) {
+                copy.replaceOne(Query.query(Criteria.where("_id").is(notification.getId())), notification,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            copy.execute();
+            List<String> ids = batch.stream().map(Notification::getId).toList();
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), Notification.class);
+
+            Map<String, Long> countedUnread = batch.stream()
+                    .filter(notificationCounterService::isCountedUnread)
+                    .collect(Collectors.groupingBy(Notification::getUserId, Collectors.counting()));
+            countedUnread.forEach(notificationCounterService::decrement);
+
+            archived += batch.size();
+        }
+        if (archived > 0) {
+            log.info("NotificationRetentionService: archived {} notifications older than {}", archived, cutoff);
+        }
+    }
+}
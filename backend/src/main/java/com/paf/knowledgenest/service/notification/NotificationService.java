@@ -6,6 +6,7 @@ import com.paf.knowledgenest.utils.ApiResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface NotificationService {
@@ -27,20 +28,18 @@ public interface NotificationService {
 
 
     //-------------------------------
-    // Create a notification
+    // Create a notification. Only references are stored; the message is rendered when read
     void createNotification(
         String userId,         // Receiver 
         String actorId,        // Actor who triggered the notification
-        String actorName,      // Actor name
         Notification.NotificationType type,
-        String message,
         String resourceId,     // Related resource ID
         String resourceType,   // Type of resource
         String commentId       // Optional comment ID
     );
     
-    // Get notifications for a user
-    List<NotificationDto.Response> getNotificationsForUser(String userId);
+    // Get up to `limit` notifications before the (createdAt, id) cursor (newest first, capped)
+    List<NotificationDto.Response> getNotificationsForUser(String userId, LocalDateTime before, String beforeId, int limit);
     
     // Get notifications with pagination
     Page<NotificationDto.Response> getNotificationsForUser(String userId, Pageable pageable);
@@ -57,6 +56,12 @@ public interface NotificationService {
     // Delete a notification
     ApiResponse<Boolean> deleteNotification(String notificationId);
     
+    // Mark the caller's notifications selected by the request as read; returns how many changed
+    long markNotificationsAsRead(String userId, NotificationDto.BatchRequest request);
+
+    // Delete the caller's notifications selected by the request; returns how many were removed
+    long deleteNotifications(String userId, NotificationDto.BatchRequest request);
+    
     // Get unread notification count
     NotificationDto.CountResponse getUnreadNotificationCount(String userId);
     
@@ -64,31 +69,24 @@ public interface NotificationService {
     void createLikeNotification(
         String postOwnerId, 
         String likerId, 
-        String likerName, 
-        String postId,
-        String postTitle
+        String postId
     );
     
     // Create a comment notification
     void createCommentNotification(
         String postOwnerId, 
         String commenterId, 
-        String commenterName, 
         String postId,
-        String postTitle,
         String commentId,
-        String commentContent
+        String commentContent  // Quoted in the message
     );
     
     // Create a comment reply notification
     void createCommentReplyNotification(
         String commentOwnerId,
         String replierId,
-        String replierName,
         String postId,
-        String postTitle,
-        String parentCommentId,
         String replyCommentId,
-        String replyContent
+        String replyContent    // Quoted in the message
     );
 } 
\ No newline at end of file
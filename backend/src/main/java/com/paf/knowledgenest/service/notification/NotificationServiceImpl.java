@@ -1,32 +1,63 @@
 package com.paf.knowledgenest.service.notification;
 
 import com.paf.knowledgenest.dto.notification.NotificationDto;
+import com.paf.knowledgenest.exception.BatchOperationException;
 import com.paf.knowledgenest.exception.ResourceNotFoundException;
+import com.paf.knowledgenest.exception.UnauthorizedException;
 import com.paf.knowledgenest.model.notification.Notification;
 import com.paf.knowledgenest.repository.notification.NotificationRepository;
 import com.paf.knowledgenest.utils.ApiResponse;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
-import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class NotificationServiceImpl implements NotificationService {
 
+    // Upper bound for any single notification listing
+    static final int MAX_PAGE_SIZE = 100;
+
+    // Upper bound for explicit ids in one batch operation
+    static final int MAX_BATCH_IDS = 500;
+
     private final NotificationRepository notificationRepository;
+    private final NotificationDispatcher notificationDispatcher;
+    private final NotificationCounterService notificationCounterService;
+    private final NotificationRetentionService notificationRetentionService;
+    private final NotificationRenderer notificationRenderer;
+    private final NotificationIdempotencyGuard notificationIdempotencyGuard;
+    private final MongoTemplate mongoTemplate;
 
-    public NotificationServiceImpl(NotificationRepository notificationRepository) {
+    public NotificationServiceImpl(NotificationRepository notificationRepository,
+                                   NotificationDispatcher notificationDispatcher,
+                                   NotificationCounterService notificationCounterService,
+                                   NotificationRetentionService notificationRetentionService,
+                                   NotificationRenderer notificationRenderer,
+                                   NotificationIdempotencyGuard notificationIdempotencyGuard,
+                                   MongoTemplate mongoTemplate) {
         this.notificationRepository = notificationRepository;
+        this.notificationDispatcher = notificationDispatcher;
+        this.notificationCounterService = notificationCounterService;
+        this.notificationRetentionService = notificationRetentionService;
+        this.notificationRenderer = notificationRenderer;
+        this.notificationIdempotencyGuard = notificationIdempotencyGuard;
+        this.mongoTemplate = mongoTemplate;
     }
 
     @Override
@@ -36,7 +67,10 @@ public class NotificationServiceImpl implements NotificationService {
         notification.setMessage(message);
         notification.setType(type);
         notification.setCreatedAt(LocalDateTime.now());
-        notificationRepository.save(notification);
+        notification.setLastActivityAt(notification.getCreatedAt());
+
+        // Written asynchronously in batches by the dispatcher
+        notificationDispatcher.enqueue(notification);
     }
 
     //-------------------------------
@@ -45,12 +79,21 @@ public class NotificationServiceImpl implements NotificationService {
     public void createNotification(
             String userId, 
             String actorId, 
-            String actorName, 
             Notification.NotificationType type, 
-            String message, 
             String resourceId, 
             String resourceType, 
             String commentId) {
+        createNotification(userId, actorId, type, resourceId, resourceType, commentId, null);
+    }
+
+    private void createNotification(
+            String userId,
+            String actorId,
+            Notification.NotificationType type,
+            String resourceId,
+            String resourceType,
+            String commentId,
+            String commentContent) {
         
         // Don't create self-notifications
         if (userId.equals(actorId)) {
@@ -58,26 +101,45 @@ public class NotificationServiceImpl implements NotificationService {
         }
         
         Notification notification = new Notification();
-        notification.setId(UUID.randomUUID().toString());
+        notification.setId(new ObjectId().toHexString());
         notification.setUserId(userId);
         notification.setActorId(actorId);
-        notification.setActorName(actorName);
         notification.setType(type);
-        notification.setMessage(message);
         notification.setResourceId(resourceId);
         notification.setResourceType(resourceType);
         notification.setCommentId(commentId);
+        notification.setCommentExcerpt(NotificationRenderer.excerpt(commentContent));
         notification.setRead(false);
         notification.setCreatedAt(LocalDateTime.now());
+        notification.setLastActivityAt(notification.getCreatedAt());
+
+        // A like that was toggled off and on again is not announced twice
+        if (!notificationIdempotencyGuard.admit(notification)) {
+            return;
+        }
         
-        Notification savedNotification = notificationRepository.save(notification);
-        NotificationDto.Response.fromNotification(savedNotification);
+        // Written asynchronously in batches by the dispatcher
+        notificationDispatcher.enqueue(notification);
     }
 
     @Override
-    public List<NotificationDto.Response> getNotificationsForUser(String userId) {
-        List<Notification> notifications = notificationRepository.findByUserId(userId);
-        return NotificationDto.Response.fromNotifications(notifications);
+    public List<NotificationDto.Response> getNotificationsForUser(String userId, LocalDateTime before, String beforeId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        LocalDateTime cursor = before != null ? before : LocalDateTime.now().plusSeconds(1);
+
+        // Keyset on (createdAt, _id): notifications sharing the cursor's createdAt are ordered
+        // by id, so a page boundary inside one millisecond neither skips nor repeats any
+        Criteria page = before != null && beforeId != null && ObjectId.isValid(beforeId)
+                ? new Criteria().orOperator(
+                        Criteria.where("createdAt").lt(cursor),
+                        Criteria.where("createdAt").is(cursor).and("_id").lt(new ObjectId(beforeId)))
+                : Criteria.where("createdAt").lt(cursor);
+        Query query = Query.query(Criteria.where("userId").is(userId))
+                .addCriteria(page)
+                .with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id")))
+                .limit(pageSize);
+        List<Notification> notifications = mongoTemplate.find(query, Notification.class);
+        return notificationRenderer.render(notifications, notificationCounterService.getLastReadAt(userId));
     }
 
     @Override
@@ -89,20 +151,17 @@ public class NotificationServiceImpl implements NotificationService {
                 return new PageImpl<>(Collections.emptyList(), pageable, 0);
             }
             
+            if (pageable.getPageSize() > MAX_PAGE_SIZE) {
+                pageable = PageRequest.of(pageable.getPageNumber(), MAX_PAGE_SIZE, pageable.getSort());
+            }
+            
             Page<Notification> notificationsPage = notificationRepository.findByUserId(userId, pageable);
+            LocalDateTime lastReadAt = notificationCounterService.getLastReadAt(userId);
 
 
-            List<NotificationDto.Response> notificationResponses = notificationsPage.getContent().stream()
-                    .map(notification -> {
-                        try {
-                            return NotificationDto.Response.fromNotification(notification);
-                        } catch (Exception e) {
-                           log.error("NotificationService: Error mapping notification: " + e.getMessage());
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+            // Messages are rendered for the whole page with batched lookups
+            List<NotificationDto.Response> notificationResponses =
+                    notificationRenderer.render(notificationsPage.getContent(), lastReadAt);
             
             return new PageImpl<>(notificationResponses, pageable, notificationsPage.getTotalElements());
         } catch (Exception e) {
@@ -121,20 +180,17 @@ public class NotificationServiceImpl implements NotificationService {
                 return Collections.emptyList();
             }
             
-            List<Notification> notifications = notificationRepository.findByUserIdAndReadFalse(userId);
+            // Indexed range on createdAt above the read watermark
+            LocalDateTime lastReadAt = notificationCounterService.getLastReadAt(userId);
+            Criteria unread = Criteria.where("userId").is(userId).and("read").is(false);
+            if (lastReadAt != null) {
+                unread = unread.and("createdAt").gt(lastReadAt);
+            }
+            List<Notification> notifications = mongoTemplate.find(
+                    Query.query(unread).with(Sort.by(Sort.Direction.DESC, "createdAt")), Notification.class);
 
             log.info("NotificationService: Getting unread notifications for user: {}", userId);
-            return notifications.stream()
-                    .map(notification -> {
-                        try {
-                            return NotificationDto.Response.fromNotification(notification);
-                        } catch (Exception e) {
-                            log.error("Error mapping notification: " + notification.getId(), e.getMessage());
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+            return notificationRenderer.render(notifications, lastReadAt);
         } catch (Exception e) {
             log.error("Error getting unread notifications for user: " + userId, e.getMessage());
             return Collections.emptyList();
@@ -143,29 +199,55 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     public NotificationDto.Response markNotificationAsRead(String notificationId) {
+        // Only the call that actually flips read=false -> true touches the counter. The same
+        // write starts the retention clock, picking the TTL from the document's own type.
+        LocalDateTime readAt = LocalDateTime.now();
+        Notification previous = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(notificationId).and("read").is(false)),
+                AggregationUpdate.update()
+                        .set("read").toValue(true)
+                        .set("expireAt").toValueOf(notificationRetentionService.expireAtExpression(readAt)),
+                FindAndModifyOptions.options().returnNew(false),
+                Notification.class
+        );
+
+        if (previous != null) {
+            // Already below the watermark means it was not counted
+            if (notificationCounterService.isCountedUnread(previous)) {
+                notificationCounterService.decrement(previous.getUserId(), 1);
+            }
+
+            previous.setRead(true);
+            previous.setExpireAt(notificationRetentionService.expireAtFor(previous.getType(), readAt));
+            return notificationRenderer.render(previous, null);
+        }
+
+        // Already read (or missing)
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Notification", "id", notificationId));
-        
-        notification.setRead(true);
-        Notification updatedNotification = notificationRepository.save(notification);
-        
-        return NotificationDto.Response.fromNotification(updatedNotification);
+        return notificationRenderer.render(notification, null);
     }
 
     @Override
     public void markAllNotificationsAsRead(String userId) {
-        List<Notification> unreadNotifications = notificationRepository.findByUserIdAndReadFalse(userId);
-        
-        unreadNotifications.forEach(notification -> notification.setRead(true));
-        
-        notificationRepository.saveAll(unreadNotifications);
+        if (userId == null || userId.isEmpty()) {
+            return;
+        }
+
+        // Single-document update: everything up to now falls under the watermark
+        notificationCounterService.markAllRead(userId);
     }
 
     @Transactional
     @Override
     public ApiResponse<Boolean> deleteNotification(String notificationId) {
         try{
-            notificationRepository.deleteById(notificationId);
+            Notification removed = mongoTemplate.findAndRemove(
+                    Query.query(Criteria.where("_id").is(notificationId)), Notification.class);
+
+            if (removed != null && notificationCounterService.isCountedUnread(removed)) {
+                notificationCounterService.decrement(removed.getUserId(), 1);
+            }
 
             return ApiResponse.successResponse("Notification Removed Successfully", true);
         } catch (Exception e) {
@@ -174,6 +256,88 @@ public class NotificationServiceImpl implements NotificationService {
         }
     }
 
+    @Override
+    public long markNotificationsAsRead(String userId, NotificationDto.BatchRequest request) {
+        Criteria selection = batchSelection(userId, request);
+        LocalDateTime lastReadAt = notificationCounterService.getLastReadAt(userId);
+
+        // expireAt is picked from each document's own type inside the update
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("read").toValue(true)
+                .set("expireAt").toValueOf(notificationRetentionService.expireAtExpression(LocalDateTime.now()));
+
+        // Two writes because the counter only holds unread notifications above the watermark:
+        // flipping those first gives the exact decrement, then the rest of the selection follows
+        long countedTotal = mongoTemplate.updateMulti(
+                Query.query(unreadAbove(selection, lastReadAt)), update, Notification.class).getModifiedCount();
+        long rest = mongoTemplate.updateMulti(
+                Query.query(new Criteria().andOperator(selection, Criteria.where("read").is(false))),
+                update, Notification.class).getModifiedCount();
+
+        if (countedTotal > 0) {
+            notificationCounterService.decrement(userId, countedTotal);
+        }
+        return countedTotal + rest;
+    }
+
+    @Override
+    public long deleteNotifications(String userId, NotificationDto.BatchRequest request) {
+        Criteria selection = batchSelection(userId, request);
+        LocalDateTime lastReadAt = notificationCounterService.getLastReadAt(userId);
+
+        // Counted unread ones go first so the decrement is exact
+        long counted = mongoTemplate.remove(
+                Query.query(unreadAbove(selection, lastReadAt)), Notification.class).getDeletedCount();
+        long rest = mongoTemplate.remove(Query.query(selection), Notification.class).getDeletedCount();
+
+        if (counted > 0) {
+            notificationCounterService.decrement(userId, counted);
+        }
+        return counted + rest;
+    }
+
+    // Always scoped to the caller; ids, type and createdAt range narrow it further
+    private Criteria batchSelection(String userId, NotificationDto.BatchRequest request) {
+        if (userId == null || userId.isEmpty()) {
+            throw new UnauthorizedException("User not found");
+        }
+        if (request == null || !request.hasSelector()) {
+            throw new BatchOperationException("Select notifications by ids, type or date range",
+                    List.of("ids", "type", "from", "to"));
+        }
+        if (request.getIds() != null && request.getIds().size() > MAX_BATCH_IDS) {
+            throw new BatchOperationException("Too many notification ids",
+                    List.of("at most " + MAX_BATCH_IDS + " ids per request"));
+        }
+
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            criteria.and("_id").in(request.getIds());
+        }
+        if (request.getType() != null) {
+            criteria.and("type").is(request.getType());
+        }
+        if (request.getFrom() != null || request.getTo() != null) {
+            Criteria createdAt = criteria.and("createdAt");
+            if (request.getFrom() != null) {
+                createdAt.gte(request.getFrom());
+            }
+            if (request.getTo() != null) {
+                createdAt.lte(request.getTo());
+            }
+        }
+        return criteria;
+    }
+
+    // The part of a selection that is still counted as unread for the receiver
+    private Criteria unreadAbove(Criteria selection, LocalDateTime lastReadAt) {
+        Criteria unread = Criteria.where("read").is(false);
+        if (lastReadAt != null) {
+            unread = new Criteria().andOperator(unread, Criteria.where("createdAt").gt(lastReadAt));
+        }
+        return new Criteria().andOperator(selection, unread);
+    }
+
     @Override
     public NotificationDto.CountResponse getUnreadNotificationCount(String userId) {
         try {
@@ -185,7 +349,7 @@ public class NotificationServiceImpl implements NotificationService {
                 return new NotificationDto.CountResponse(0);
             }
             
-            long count = notificationRepository.countByUserIdAndReadFalse(userId);
+            long count = notificationCounterService.getUnreadCount(userId);
 
             log.info("NotificationService: Getting unread count for user: " + userId);
             return new NotificationDto.CountResponse(count);
@@ -200,18 +364,12 @@ public class NotificationServiceImpl implements NotificationService {
     public void createLikeNotification(
             String postOwnerId, 
             String likerId, 
-            String likerName, 
-            String postId, 
-            String postTitle) {
-        
-        String message = likerName + " liked your post: " + postTitle;
+            String postId) {
 
         createNotification(
                 postOwnerId,
                 likerId,
-                likerName,
                 Notification.NotificationType.LIKE,
-                message,
                 postId,
                 "SKILL_POST",
                 null
@@ -222,28 +380,18 @@ public class NotificationServiceImpl implements NotificationService {
     public void createCommentNotification(
             String postOwnerId, 
             String commenterId, 
-            String commenterName, 
             String postId, 
-            String postTitle, 
-            String commentId, 
+            String commentId,
             String commentContent) {
-        
-        // Truncate comment content if it's too long for notification
-        String truncatedComment = commentContent.length() > 50 
-                ? commentContent.substring(0, 47) + "..." 
-                : commentContent;
-        
-        String message = commenterName + " commented on your post: \"" + truncatedComment + "\"";
 
         createNotification(
                 postOwnerId,
                 commenterId,
-                commenterName,
                 Notification.NotificationType.COMMENT,
-                message,
                 postId,
                 "SKILL_POST",
-                commentId
+                commentId,
+                commentContent
         );
     }
 
@@ -251,29 +399,18 @@ public class NotificationServiceImpl implements NotificationService {
     public void createCommentReplyNotification(
             String commentOwnerId,
             String replierId,
-            String replierName,
             String postId,
-            String postTitle,
-            String parentCommentId,
             String replyCommentId,
             String replyContent) {
-        
-        // Truncate reply content if it's too long for notification
-        String truncatedReply = replyContent.length() > 50 
-                ? replyContent.substring(0, 47) + "..." 
-                : replyContent;
-        
-        String message = replierName + " replied to your comment on \"" + postTitle + "\": \"" + truncatedReply + "\"";
 
         createNotification(
                 commentOwnerId,
                 replierId,
-                replierName,
                 Notification.NotificationType.COMMENT_REPLY,
-                message,
                 postId,
                 "SKILL_POST",
-                replyCommentId
+                replyCommentId,
+                replyContent
         );
     }
-} 
\ No newline at end of file
+}
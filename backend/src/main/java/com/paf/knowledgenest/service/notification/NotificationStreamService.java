@@ -0,0 +1,195 @@
+package com.paf.knowledgenest.service.notification;
+
+import com.paf.knowledgenest.dto.notification.NotificationDto;
+import com.paf.knowledgenest.model.notification.Notification;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of open notification streams (Server-Sent Events), keyed by receiver user id.
+ *
+ * An open stream holds no request thread: SseEmitter runs on servlet async support and
+ * pushes are sent from virtual threads, so idle connections only cost their registry entry.
+ * Event ids are "<createdAt epoch millis>-<notification id>", so a client reconnecting with
+ * Last-Event-ID gets everything it missed replayed, including notifications created in the
+ * same millisecond as the last one it saw.
+ */
+@Slf4j
+@Service
+public class NotificationStreamService implements NotificationFlushListener {
+
+    private static final String NOTIFICATION_EVENT = "notification";
+    private static final String UNREAD_COUNT_EVENT = "unread-count";
+    private static final int REPLAY_LIMIT = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationCounterService notificationCounterService;
+    private final NotificationRenderer notificationRenderer;
+    private final long emitterTimeoutMillis;
+    private final Map<String, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    public NotificationStreamService(
+            MongoTemplate mongoTemplate,
+            NotificationCounterService notificationCounterService,
+            NotificationRenderer notificationRenderer,
+            @Value("${notifications.stream.timeout-ms:1800000}") long emitterTimeoutMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.notificationCounterService = notificationCounterService;
+        this.notificationRenderer = notificationRenderer;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+    }
+
+    public SseEmitter subscribe(String userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        emitters.compute(userId, (id, userEmitters) -> {
+            Set<SseEmitter> target = userEmitters != null ? userEmitters : new CopyOnWriteArraySet<>();
+            target.add(emitter);
+            return target;
+        });
+
+        Runnable remove = () -> removeEmitter(userId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        sender.execute(() -> {
+            replayMissed(userId, emitter, lastEventId);
+            sendUnreadCount(userId, Set.of(emitter));
+        });
+        return emitter;
+    }
+
+    @Override
+    public void onNotificationsStored(List<Notification> notifications) {
+        Map<String, List<Notification>> byUser = notifications.stream()
+                .filter(n -> n.getUserId() != null && emitters.containsKey(n.getUserId()))
+                .collect(Collectors.groupingBy(Notification::getUserId));
+
+        byUser.forEach((userId, userNotifications) -> sender.execute(() -> {
+            Set<SseEmitter> userEmitters = emitters.getOrDefault(userId, Set.of());
+            sendNotifications(userId, userEmitters, userNotifications);
+            sendUnreadCount(userId, userEmitters);
+        }));
+    }
+
+    // A coalesced notification changed ("... and N others"); clients replace it by id
+    @Override
+    public void onNotificationsMerged(List<Notification> notifications) {
+        onNotificationsStored(notifications);
+    }
+
+    // Keeps proxies and load balancers from closing idle streams
+    @Scheduled(fixedRateString = "${notifications.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        emitters.forEach((userId, userEmitters) -> sender.execute(() ->
+                send(userId, userEmitters, () -> SseEmitter.event().comment("heartbeat"))));
+    }
+
+    public int getOpenStreamCount() {
+        return emitters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void replayMissed(String userId, SseEmitter emitter, String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return;
+        }
+        String[] parts = lastEventId.trim().split("-", 2);
+        try {
+            LocalDateTime since = LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(Long.parseLong(parts[0])), ZoneId.systemDefault());
+            // Keyset on (createdAt, _id): ties within a millisecond are ordered by id instead of skipped
+            Criteria after = parts.length == 2 && ObjectId.isValid(parts[1])
+                    ? new Criteria().orOperator(
+                            Criteria.where("createdAt").gt(since),
+                            Criteria.where("createdAt").is(since).and("_id").gt(new ObjectId(parts[1])))
+                    // Old millis-only ids: include the boundary millisecond; clients de-duplicate by id
+                    : Criteria.where("createdAt").gte(since);
+            Query query = Query.query(Criteria.where("userId").is(userId))
+                    .addCriteria(after)
+                    .with(Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("_id")))
+                    .limit(REPLAY_LIMIT);
+            sendNotifications(userId, Set.of(emitter), mongoTemplate.find(query, Notification.class));
+        } catch (NumberFormatException e) {
+            log.warn("NotificationStreamService: ignoring malformed Last-Event-ID '{}'", lastEventId);
+        }
+    }
+
+    private void sendNotifications(String userId, Set<SseEmitter> targets, List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        // One batched render for the lot
+        List<NotificationDto.Response> rendered = notificationRenderer.render(notifications, null);
+        for (int i = 0; i < rendered.size(); i++) {
+            String eventId = toEventId(notifications.get(i));
+            NotificationDto.Response payload = rendered.get(i);
+            send(userId, targets, () -> SseEmitter.event()
+                    .id(eventId)
+                    .name(NOTIFICATION_EVENT)
+                    .data(payload));
+        }
+    }
+
+    private void sendUnreadCount(String userId, Set<SseEmitter> targets) {
+        long count = notificationCounterService.getUnreadCount(userId);
+        send(userId, targets, () -> SseEmitter.event()
+                .name(UNREAD_COUNT_EVENT)
+                .data(new NotificationDto.CountResponse(count)));
+    }
+
+    // Takes a supplier because an SseEventBuilder can only be built once
+    private void send(String userId, Set<SseEmitter> targets, Supplier<SseEmitter.SseEventBuilder> event) {
+        for (SseEmitter emitter : targets) {
+            try {
+                emitter.send(event.get());
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the completion callback may never fire for a dead socket
+                removeEmitter(userId, emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void removeEmitter(String userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (id, userEmitters) -> {
+            userEmitters.remove(emitter);
+            return userEmitters.isEmpty() ? null : userEmitters;
+        });
+    }
+
+    private String toEventId(Notification notification) {
+        LocalDateTime time = notification.getCreatedAt() != null ? notification.getCreatedAt() : LocalDateTime.now();
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + "-" + notification.getId();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        emitters.values().forEach(userEmitters -> userEmitters.forEach(SseEmitter::complete));
+        emitters.clear();
+        sender.shutdown();
+    }
+}
@@ -0,0 +1,50 @@
+package com.paf.knowledgenest.service.notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A message pattern such as "{actor} liked your post: {postTitle}", parsed once into literal
+ * and parameter segments so rendering is a single StringBuilder pass with no re-parsing.
+ * Immutable and safe to share between threads.
+ */
+final class NotificationTemplate {
+
+    private final String[] literals;
+    private final String[] params;
+
+    private NotificationTemplate(String[] literals, String[] params) {
+        this.literals = literals;
+        this.params = params;
+    }
+
+    static NotificationTemplate compile(String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<String> params = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int open = pattern.indexOf('{', pos);
+            int close = open < 0 ? -1 : pattern.indexOf('}', open);
+            if (close < 0) {
+                literals.add(pattern.substring(pos));
+                break;
+            }
+            literals.add(pattern.substring(pos, open));
+            params.add(pattern.substring(open + 1, close));
+            pos = close + 1;
+        }
+        return new NotificationTemplate(literals.toArray(new String[0]), params.toArray(new String[0]));
+    }
+
+    // literals[i] is followed by params[i]; the last literal closes the message
+    String render(Map<String, String> values) {
+        StringBuilder sb = new StringBuilder(64);
+        for (int i = 0; i < params.length; i++) {
+            sb.append(literals[i]);
+            String value = values.get(params[i]);
+            sb.append(value != null ? value : "");
+        }
+        return sb.append(literals[literals.length - 1]).toString();
+    }
+}
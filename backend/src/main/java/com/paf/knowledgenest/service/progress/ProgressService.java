@@ -57,14 +57,14 @@ public class ProgressService {
                 progress.setLastUpdate( LocalTime.now());
 
 
-                if(progressRequestDTO.getUserId() != null) {
-                    socialService.addUserCoins(progressRequestDTO.getUserId(), CoinType.CHALLENGE_CREATION);
-                }
-
-
                 // Save the progress object to the database
                 Progress addedProgress = progressRepository.save(progress); // the added progress object will be returned and saved in addedProgress variable
 
+                // Rewarded once per created progress
+                if(progressRequestDTO.getUserId() != null) {
+                    socialService.addUserCoins(progressRequestDTO.getUserId(), CoinType.CHALLENGE_CREATION, addedProgress.getProgressId());
+                }
+
                 //Then we need to set the values from addedProgress to progressResponseDTO to return to frontend
                 progressResponseDTO.setTitle(addedProgress.getTitle());
                 progressResponseDTO.setTopics(addedProgress.getTopics());
@@ -148,7 +148,9 @@ public class ProgressService {
 
                 if(progressRequest.getUserId() != null) {
                    if( progress.getProgress() >= 100){
-                       socialService.addUserCoins(progressRequest.getUserId(), CoinType.PROGRESS_COMPLETION);
+                       // Keyed by progress and user, so later updates of a finished progress pay nothing more
+                       socialService.addUserCoins(progressRequest.getUserId(), CoinType.PROGRESS_COMPLETION,
+                               progressId + ":" + progressRequest.getUserId());
                    }
                 }
 
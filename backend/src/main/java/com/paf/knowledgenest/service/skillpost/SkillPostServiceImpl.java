@@ -8,6 +8,7 @@ import com.paf.knowledgenest.model.skillpost.Comment;
 import com.paf.knowledgenest.model.skillpost.SkillPost;
 import com.paf.knowledgenest.repository.skillpost.SkillPostRepository;
 import com.paf.knowledgenest.service.notification.NotificationService;
+import com.paf.knowledgenest.utils.OptimisticRetryTemplate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -25,6 +26,7 @@ public class SkillPostServiceImpl implements SkillPostService {
 
     private final SkillPostRepository skillPostRepository;
     private final NotificationService notificationService;
+    private final OptimisticRetryTemplate retryTemplate;
 
     @Override
     public SkillPostDto.Response createPost(SkillPostDto.Request request, String userId, String userName) {
@@ -54,22 +56,24 @@ public class SkillPostServiceImpl implements SkillPostService {
 
     @Override
     public SkillPostDto.Response updatePost(String id, SkillPostDto.Request request, String userId) {
-        SkillPost post = skillPostRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("SkillPost", "id", id));
-        
-        // Check ownership
-        if (!post.getUserId().equals(userId)) {
-            throw new UnauthorizedException("You are not authorized to update this post");
-        }
-        
-        post.setTitle(request.getTitle());
-        post.setDescription(request.getDescription());
-        post.setContent(request.getContent());
-        post.setYoutubeUrl(request.getYoutubeUrl());
-        post.setTags(request.getTags());
-        post.setUpdatedAt(LocalDateTime.now());
-        
-        SkillPost updatedPost = skillPostRepository.save(post);
+        SkillPost updatedPost = retryTemplate.execute("updatePost", () -> {
+            SkillPost post = skillPostRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("SkillPost", "id", id));
+
+            // Check ownership
+            if (!post.getUserId().equals(userId)) {
+                throw new UnauthorizedException("You are not authorized to update this post");
+            }
+
+            post.setTitle(request.getTitle());
+            post.setDescription(request.getDescription());
+            post.setContent(request.getContent());
+            post.setYoutubeUrl(request.getYoutubeUrl());
+            post.setTags(request.getTags());
+            post.setUpdatedAt(LocalDateTime.now());
+
+            return skillPostRepository.save(post);
+        });
         return SkillPostDto.Response.fromSkillPost(updatedPost, userId);
     }
 
@@ -195,50 +199,53 @@ public class SkillPostServiceImpl implements SkillPostService {
 
     @Override
     public SkillPostDto.Response toggleLike(String postId, String userId) {
-        SkillPost post = skillPostRepository.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("SkillPost", "id", postId));
-        
-        // Toggle like status
-        if (post.getLikedBy().contains(userId)) {
-            post.getLikedBy().remove(userId);
-            post.setLikes(post.getLikes() - 1);
-        } else {
-            post.getLikedBy().add(userId);
-            post.setLikes(post.getLikes() + 1);
-            
-            // Create a notification for the post owner when their post is liked
-            // Only if the liker is not the post owner
-            if (!post.getUserId().equals(userId)) {
-                try {
-                    // Get the user's name from the session or user object
-                    String likerName = getUserName(userId);
-                    
-                    notificationService.createLikeNotification(
-                        post.getUserId(),       // Post owner receives the notification
-                        userId,                 // User who liked the post
-                        likerName,              // Now using actual username instead of "A user"
-                        postId,                 // The post that was liked
-                        post.getTitle()         // Title of the post
-                    );
-                    
-                    System.out.println("Created like notification: User " + userId + " (" + likerName + ") liked post " + postId + " owned by " + post.getUserId());
-                } catch (Exception e) {
-                    // Log the error but don't fail the like operation
-                    System.err.println("Error creating notification: " + e.getMessage());
-                    e.printStackTrace();
-                }
+        SkillPost updatedPost = retryTemplate.execute("toggleLike", () -> {
+            SkillPost post = skillPostRepository.findById(postId)
+                    .orElseThrow(() -> new ResourceNotFoundException("SkillPost", "id", postId));
+
+            // Toggle like status
+            if (post.getLikedBy().contains(userId)) {
+                post.getLikedBy().remove(userId);
+                post.setLikes(post.getLikes() - 1);
+            } else {
+                post.getLikedBy().add(userId);
+                post.setLikes(post.getLikes() + 1);
+            }
+
+            return skillPostRepository.save(post);
+        });
+
+        // Create a notification for the post owner when their post is liked
+        // Only if the liker is not the post owner. Sent after the save succeeded so
+        // retried attempts never notify twice.
+        if (updatedPost.getLikedBy().contains(userId) && !updatedPost.getUserId().equals(userId)) {
+            try {
+                // Names and titles are resolved when the notification is read
+                notificationService.createLikeNotification(
+                    updatedPost.getUserId(),    // Post owner receives the notification
+                    userId,                     // User who liked the post
+                    postId                      // The post that was liked
+                );
+
+                System.out.println("Created like notification: User " + userId + " liked post " + postId + " owned by " + updatedPost.getUserId());
+            } catch (Exception e) {
+                // Log the error but don't fail the like operation
+                System.err.println("Error creating notification: " + e.getMessage());
+                e.printStackTrace();
             }
         }
-        
-        SkillPost updatedPost = skillPostRepository.save(post);
+
         return SkillPostDto.Response.fromSkillPost(updatedPost, userId);
     }
 
     @Override
     public SkillPostDto.Response addComment(String postId, SkillPostDto.CommentRequest request, String userId, String userName) {
-        SkillPost post = skillPostRepository.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("SkillPost", "id", postId));
-        
+        // If this is a reply to another comment, set the parent ID
+        if (request.getParentCommentId() != null && !request.getParentCommentId().isEmpty()) {
+            return replyToComment(postId, request.getParentCommentId(), request, userId, userName);
+        }
+
+        // Built once outside the retry loop so every attempt appends the same comment
         Comment comment = new Comment();
         comment.setId(UUID.randomUUID().toString());
         comment.setUserId(userId);
@@ -248,26 +255,24 @@ public class SkillPostServiceImpl implements SkillPostService {
         LocalDateTime now = LocalDateTime.now();
         comment.setCreatedAt(now);
         comment.setUpdatedAt(now);
-        
-        // If this is a reply to another comment, set the parent ID
-        if (request.getParentCommentId() != null && !request.getParentCommentId().isEmpty()) {
-            return replyToComment(postId, request.getParentCommentId(), request, userId, userName);
-        }
-        
-        post.getComments().add(comment);
-        SkillPost updatedPost = skillPostRepository.save(post);
+
+        SkillPost updatedPost = retryTemplate.execute("addComment", () -> {
+            SkillPost post = skillPostRepository.findById(postId)
+                    .orElseThrow(() -> new ResourceNotFoundException("SkillPost", "id", postId));
+
+            post.getComments().add(comment);
+            return skillPostRepository.save(post);
+        });
         
         // Create a notification for the post owner when someone comments on their post
         // Only if the commenter is not the post owner
-        if (!post.getUserId().equals(userId)) {
+        if (!updatedPost.getUserId().equals(userId)) {
             notificationService.createCommentNotification(
-                post.getUserId(),       // Post owner receives the notification
-                userId,                 // User who commented
-                userName,               // Name of the commenter
-                postId,                 // The post that was commented on
-                post.getTitle(),        // Title of the post
-                comment.getId(),        // ID of the comment
-                comment.getContent()    // Content of the comment
+                updatedPost.getUserId(),    // Post owner receives the notification
+                userId,                     // User who commented
+                postId,                     // The post that was commented on
+                comment.getId(),            // ID of the comment
+                comment.getContent()        // Quoted in the notification
             );
         }
         
@@ -278,19 +283,7 @@ public class SkillPostServiceImpl implements SkillPostService {
     public SkillPostDto.Response replyToComment(String postId, String parentCommentId, 
                                            SkillPostDto.CommentRequest request, 
                                            String userId, String userName) {
-        SkillPost post = skillPostRepository.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("SkillPost", "id", postId));
-        
-        // Find the parent comment
-        Optional<Comment> parentCommentOpt = findCommentById(post.getComments(), parentCommentId);
-        
-        if (parentCommentOpt.isEmpty()) {
-            throw new ResourceNotFoundException("Comment", "id", parentCommentId);
-        }
-        
-        Comment parentComment = parentCommentOpt.get();
-        
-        // Create the reply comment
+        // Create the reply comment (once, so retries append the same reply)
         Comment reply = new Comment();
         reply.setId(UUID.randomUUID().toString());
         reply.setUserId(userId);
@@ -301,15 +294,27 @@ public class SkillPostServiceImpl implements SkillPostService {
         LocalDateTime now = LocalDateTime.now();
         reply.setCreatedAt(now);
         reply.setUpdatedAt(now);
-        
-        // Add the reply to the parent comment's replies list
-        if (parentComment.getReplies() == null) {
-            parentComment.setReplies(new ArrayList<>());
-        }
-        parentComment.getReplies().add(reply);
-        
-        // Save the updated post
-        SkillPost updatedPost = skillPostRepository.save(post);
+
+        SkillPost updatedPost = retryTemplate.execute("replyToComment", () -> {
+            SkillPost post = skillPostRepository.findById(postId)
+                    .orElseThrow(() -> new ResourceNotFoundException("SkillPost", "id", postId));
+
+            // Find the parent comment
+            Comment parentComment = findCommentById(post.getComments(), parentCommentId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", parentCommentId));
+
+            // Add the reply to the parent comment's replies list
+            if (parentComment.getReplies() == null) {
+                parentComment.setReplies(new ArrayList<>());
+            }
+            parentComment.getReplies().add(reply);
+
+            // Save the updated post
+            return skillPostRepository.save(post);
+        });
+
+        Comment parentComment = findCommentById(updatedPost.getComments(), parentCommentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", parentCommentId));
         
         // Create a notification for the parent comment owner
         // Only if the replier is not the comment owner
@@ -317,27 +322,22 @@ public class SkillPostServiceImpl implements SkillPostService {
             notificationService.createCommentReplyNotification(
                 parentComment.getUserId(),  // Comment owner receives the notification
                 userId,                     // User who replied
-                userName,                   // Name of the replier
                 postId,                     // The post containing the comment
-                post.getTitle(),            // Title of the post
-                parentCommentId,            // ID of the parent comment
                 reply.getId(),              // ID of the reply comment
-                reply.getContent()          // Content of the reply
+                reply.getContent()          // Quoted in the notification
             );
         }
         
         // Also notify the post owner if they're different from the parent comment owner
         // and different from the replier
-        if (!post.getUserId().equals(parentComment.getUserId()) && 
-            !post.getUserId().equals(userId)) {
+        if (!updatedPost.getUserId().equals(parentComment.getUserId()) && 
+            !updatedPost.getUserId().equals(userId)) {
             notificationService.createCommentNotification(
-                post.getUserId(),        // Post owner receives the notification
-                userId,                  // User who replied
-                userName,                // Name of the replier
-                postId,                  // The post ID
-                post.getTitle(),         // Title of the post
-                reply.getId(),           // ID of the reply
-                reply.getContent()       // Content of the reply
+                updatedPost.getUserId(),    // Post owner receives the notification
+                userId,                     // User who replied
+                postId,                     // The post ID
+                reply.getId(),              // ID of the reply
+                reply.getContent()          // Quoted in the notification
             );
         }
         
@@ -370,55 +370,49 @@ public class SkillPostServiceImpl implements SkillPostService {
 
     @Override
     public SkillPostDto.Response updateComment(String postId, String commentId, SkillPostDto.CommentRequest request, String userId) {
-        SkillPost post = skillPostRepository.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("SkillPost", "id", postId));
-        
-        // Find the comment
-        Optional<Comment> commentOpt = post.getComments().stream()
-                .filter(c -> c.getId().equals(commentId))
-                .findFirst();
-        
-        if (commentOpt.isEmpty()) {
-            throw new ResourceNotFoundException("Comment", "id", commentId);
-        }
-        
-        Comment comment = commentOpt.get();
-        
-        // Check ownership
-        if (!comment.getUserId().equals(userId) && !post.getUserId().equals(userId)) {
-            throw new UnauthorizedException("You are not authorized to update this comment");
-        }
-        
-        comment.setContent(request.getContent());
-        comment.setUpdatedAt(LocalDateTime.now());
-        
-        SkillPost updatedPost = skillPostRepository.save(post);
+        SkillPost updatedPost = retryTemplate.execute("updateComment", () -> {
+            SkillPost post = skillPostRepository.findById(postId)
+                    .orElseThrow(() -> new ResourceNotFoundException("SkillPost", "id", postId));
+
+            // Find the comment
+            Comment comment = post.getComments().stream()
+                    .filter(c -> c.getId().equals(commentId))
+                    .findFirst()
+                    .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", commentId));
+
+            // Check ownership
+            if (!comment.getUserId().equals(userId) && !post.getUserId().equals(userId)) {
+                throw new UnauthorizedException("You are not authorized to update this comment");
+            }
+
+            comment.setContent(request.getContent());
+            comment.setUpdatedAt(LocalDateTime.now());
+
+            return skillPostRepository.save(post);
+        });
         return SkillPostDto.Response.fromSkillPost(updatedPost, userId);
     }
 
     @Override
     public SkillPostDto.Response deleteComment(String postId, String commentId, String userId) {
-        SkillPost post = skillPostRepository.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("SkillPost", "id", postId));
-        
-        // Find the comment
-        Optional<Comment> commentOpt = post.getComments().stream()
-                .filter(c -> c.getId().equals(commentId))
-                .findFirst();
-        
-        if (commentOpt.isEmpty()) {
-            throw new ResourceNotFoundException("Comment", "id", commentId);
-        }
-        
-        Comment comment = commentOpt.get();
-        
-        // Check ownership (comment author or post owner can delete)
-        if (!comment.getUserId().equals(userId) && !post.getUserId().equals(userId)) {
-            throw new UnauthorizedException("You are not authorized to delete this comment");
-        }
-        
-        post.getComments().removeIf(c -> c.getId().equals(commentId));
-        SkillPost updatedPost = skillPostRepository.save(post);
+        SkillPost updatedPost = retryTemplate.execute("deleteComment", () -> {
+            SkillPost post = skillPostRepository.findById(postId)
+                    .orElseThrow(() -> new ResourceNotFoundException("SkillPost", "id", postId));
+
+            // Find the comment
+            Comment comment = post.getComments().stream()
+                    .filter(c -> c.getId().equals(commentId))
+                    .findFirst()
+                    .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", commentId));
+
+            // Check ownership (comment author or post owner can delete)
+            if (!comment.getUserId().equals(userId) && !post.getUserId().equals(userId)) {
+                throw new UnauthorizedException("You are not authorized to delete this comment");
+            }
+
+            post.getComments().removeIf(c -> c.getId().equals(commentId));
+            return skillPostRepository.save(post);
+        });
         
         return SkillPostDto.Response.fromSkillPost(updatedPost, userId);
     }
@@ -454,24 +448,4 @@ public class SkillPostServiceImpl implements SkillPostService {
         System.out.println("Found " + sortedTags.size() + " unique tags");
         return sortedTags;
     }
-
-    // Helper method to get user name
-    private String getUserName(String userId) {
-        try {
-            // Try to find a post by this user to get their name
-            List<SkillPost> userPosts = skillPostRepository.findByUserId(userId);
-            if (!userPosts.isEmpty()) {
-                String userName = userPosts.get(0).getUserName();
-                if (userName != null && !userName.isEmpty()) {
-                    return userName;
-                }
-            }
-            
-            // Fallback to default name if user has no posts or no name set
-            return "User";
-        } catch (Exception e) {
-            System.err.println("Error getting user name: " + e.getMessage());
-            return "User";
-        }
-    }
 } 
\ No newline at end of file
@@ -0,0 +1,203 @@
+package com.paf.knowledgenest.service.socialFeature;
+
+import com.paf.knowledgenest.model.socialFeature.Follow;
+import com.paf.knowledgenest.model.user.User;
+import com.paf.knowledgenest.repository.socialFeature.FollowRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The social graph, stored as one document per edge in the follows collection rather than
+ * as lists inside the user documents, so a popular user's document stays small. The unique
+ * (followerId, followeeId) index makes the edge insert the single point of truth for
+ * "is X following Y"; followerCount/followingCount on the user are maintained with $inc.
+ */
+@Service
+public class FollowGraphService {
+
+    private static final int REMOVE_BATCH_SIZE = 1000;
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt");
+
+    private final FollowRepository followRepository;
+    private final MongoTemplate mongoTemplate;
+
+    // followerId -> immutable set of followee ids, LRU-bounded; dropped whenever the user's edges change
+    private final Map<String, Set<String>> followeeCache;
+    // Bumped on every eviction so a load that raced with a follow/unfollow is not cached
+    private long evictions;
+
+    public FollowGraphService(
+            FollowRepository followRepository,
+            MongoTemplate mongoTemplate,
+            @Value("${social.followee-cache.size:5000}") int followeeCacheSize) {
+        this.followRepository = followRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.followeeCache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Set<String>> eldest) {
+                return size() > followeeCacheSize;
+            }
+        };
+    }
+
+    // True when a new edge was created, false when followerId already followed followeeId
+    public boolean follow(String followerId, String followeeId) {
+        try {
+            followRepository.insert(new Follow(followerId, followeeId));
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+
+        try {
+            adjustCounts(followerId, followeeId, 1);
+        } catch (RuntimeException e) {
+            // Do not leave an edge the counts know nothing about
+            followRepository.deleteByFollowerIdAndFolloweeId(followerId, followeeId);
+            throw e;
+        } finally {
+            evict(followerId);
+        }
+        return true;
+    }
+
+    // True when an edge was removed, false when followerId was not following followeeId
+    public boolean unfollow(String followerId, String followeeId) {
+        if (followRepository.deleteByFollowerIdAndFolloweeId(followerId, followeeId) == 0) {
+            return false;
+        }
+        evict(followerId);
+        adjustCounts(followerId, followeeId, -1);
+        return true;
+    }
+
+    public boolean isFollowing(String followerId, String followeeId) {
+        return followeeId != null && followeeSet(followerId).contains(followeeId);
+    }
+
+    // The subset of candidateIds that followerId follows, in candidate order. Null ids are
+    // skipped: the cached set is a Set.copyOf, whose contains(null) throws.
+    public Map<String, Boolean> followingAmong(String followerId, Collection<String> candidateIds) {
+        Set<String> followees = followeeSet(followerId);
+        Map<String, Boolean> membership = new LinkedHashMap<>();
+        for (String candidateId : candidateIds) {
+            if (candidateId != null) {
+                membership.put(candidateId, followees.contains(candidateId));
+            }
+        }
+        return membership;
+    }
+
+    // Served from the cache; a miss costs one covered query on the (followerId, followeeId) index
+    public Set<String> followeeSet(String followerId) {
+        long snapshot;
+        synchronized (followeeCache) {
+            Set<String> cached = followeeCache.get(followerId);
+            if (cached != null) {
+                return cached;
+            }
+            snapshot = evictions;
+        }
+        Set<String> loaded = Set.copyOf(followeeIds(followerId));
+        synchronized (followeeCache) {
+            if (evictions == snapshot) {
+                followeeCache.put(followerId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    // Everyone userId follows; bounded by how many accounts one user chooses to follow
+    public List<String> followeeIds(String userId) {
+        return mongoTemplate.findDistinct(
+                Query.query(Criteria.where("followerId").is(userId)), "followeeId", Follow.class, String.class);
+    }
+
+    public List<String> followerPage(String userId, int page, int size) {
+        return followRepository.findByFolloweeId(userId, PageRequest.of(page, size, NEWEST_FIRST)).stream()
+                .map(Follow::getFollowerId)
+                .toList();
+    }
+
+    public List<String> followingPage(String userId, int page, int size) {
+        return followRepository.findByFollowerId(userId, PageRequest.of(page, size, NEWEST_FIRST)).stream()
+                .map(Follow::getFolloweeId)
+                .toList();
+    }
+
+    // Drops every edge touching userId and corrects the counts of the users on the other end
+    public void removeUser(String userId) {
+        int removed;
+        do {
+            removed = removeEdges(userId, REMOVE_BATCH_SIZE);
+        } while (removed == REMOVE_BATCH_SIZE);
+    }
+
+    /**
+     * Removes up to limit of the user's edges, in either direction, and takes them off the
+     * counts at the other end. Returns how many were removed; fewer than limit means none are left.
+     */
+    public int removeEdges(String userId, int limit) {
+        Query query = Query.query(new Criteria().orOperator(
+                Criteria.where("followerId").is(userId),
+                Criteria.where("followeeId").is(userId))).limit(limit);
+        query.fields().include("followerId").include("followeeId");
+        List<Follow> edges = mongoTemplate.find(query, Follow.class);
+        if (edges.isEmpty()) {
+            return 0;
+        }
+
+        List<String> followees = new ArrayList<>();
+        List<String> followers = new ArrayList<>();
+        for (Follow edge : edges) {
+            if (edge.getFollowerId().equals(userId)) {
+                followees.add(edge.getFolloweeId());
+            } else {
+                followers.add(edge.getFollowerId());
+            }
+        }
+        evict(userId);
+        followers.forEach(this::evict);
+
+        // Edges are unique, so each id appears once and a single updateMulti per side is enough
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(edges.stream().map(Follow::getId).toList())), Follow.class);
+        BulkOperations counts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        if (!followees.isEmpty()) {
+            counts.updateMulti(Query.query(Criteria.where("_id").in(followees)), new Update().inc("followerCount", -1));
+        }
+        if (!followers.isEmpty()) {
+            counts.updateMulti(Query.query(Criteria.where("_id").in(followers)), new Update().inc("followingCount", -1));
+        }
+        counts.execute();
+        return edges.size();
+    }
+
+    private void evict(String followerId) {
+        synchronized (followeeCache) {
+            followeeCache.remove(followerId);
+            evictions++;
+        }
+    }
+
+    private void adjustCounts(String followerId, String followeeId, int delta) {
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, User.class)
+                .updateOne(Query.query(Criteria.where("_id").is(followeeId)), new Update().inc("followerCount", delta))
+                .updateOne(Query.query(Criteria.where("_id").is(followerId)), new Update().inc("followingCount", delta))
+                .execute();
+    }
+}
@@ -0,0 +1,270 @@
+package com.paf.knowledgenest.service.socialFeature;
+
+import com.paf.knowledgenest.dto.responses.FollowSuggestionResponse;
+import com.paf.knowledgenest.dto.responses.UserSummary;
+import com.paf.knowledgenest.model.skillpost.SkillPost;
+import com.paf.knowledgenest.model.socialFeature.Follow;
+import com.paf.knowledgenest.repository.user.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * "Who to follow": second-degree connections (people followed by the people you follow),
+ * ranked by how many of your followees follow them and by the tags you both post about.
+ *
+ * Suggestions are precomputed and cached per user. A follow or unfollow only marks that
+ * user dirty; a scheduled pass recomputes the dirty and expired entries in parallel on a
+ * dedicated fork/join pool, so the endpoint never computes on the request path except for
+ * a user's very first request. The change also reaches the actor's followers, whose second
+ * degree it is: the pass looks up which of them hold cached suggestions, in one query for
+ * all the changes since the previous pass, and recomputes those as well.
+ */
+@Slf4j
+@Service
+public class FollowSuggestionService {
+
+    // A shared tag is worth less than a mutual connection
+    private static final double MUTUAL_WEIGHT = 1.0;
+    private static final double TAG_WEIGHT = 0.5;
+
+    private final MongoTemplate mongoTemplate;
+    private final FollowGraphService followGraphService;
+    private final UserRepository userRepository;
+    private final ForkJoinPool pool;
+    private final int suggestionsPerUser;
+    private final int candidateLimit;
+    private final long maxAgeMillis;
+
+    private final Map<String, Suggestions> cache;
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    // Users whose followees changed since the last pass; their followers are dirty too
+    private final Set<String> changedFollowees = ConcurrentHashMap.newKeySet();
+
+    public FollowSuggestionService(
+            MongoTemplate mongoTemplate,
+            FollowGraphService followGraphService,
+            UserRepository userRepository,
+            @Value("${social.suggestions.parallelism:0}") int parallelism,
+            @Value("${social.suggestions.per-user:20}") int suggestionsPerUser,
+            @Value("${social.suggestions.candidate-limit:500}") int candidateLimit,
+            @Value("${social.suggestions.max-age-ms:21600000}") long maxAgeMillis,
+            @Value("${social.suggestions.cache-size:10000}") int cacheSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.followGraphService = followGraphService;
+        this.userRepository = userRepository;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.suggestionsPerUser = suggestionsPerUser;
+        this.candidateLimit = candidateLimit;
+        this.maxAgeMillis = maxAgeMillis;
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Suggestions> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public List<FollowSuggestionResponse> getSuggestions(String userId, int limit) {
+        Suggestions suggestions;
+        synchronized (cache) {
+            suggestions = cache.get(userId);
+        }
+        if (suggestions == null) {
+            suggestions = refresh(userId);
+        }
+        return suggestions.items().stream()
+                // Someone followed from another tab since the last refresh
+                .filter(item -> !followGraphService.isFollowing(userId, item.getUserId()))
+                .limit(Math.max(0, limit))
+                .toList();
+    }
+
+    // Called after userId followed or unfollowed someone
+    public void markDirty(String userId) {
+        dirty.add(userId);
+        changedFollowees.add(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${social.suggestions.refresh-ms:60000}",
+               initialDelayString = "${social.suggestions.refresh-initial-delay-ms:60000}")
+    public void refreshStale() {
+        long now = System.currentTimeMillis();
+        Set<String> stale = new HashSet<>();
+        synchronized (cache) {
+            cache.forEach((userId, suggestions) -> {
+                if (now - suggestions.computedAt() > maxAgeMillis) {
+                    stale.add(userId);
+                }
+            });
+        }
+        for (String userId : List.copyOf(dirty)) {
+            dirty.remove(userId);
+            stale.add(userId);
+        }
+        stale.addAll(cachedFollowersOfChanged());
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        pool.submit(() -> stale.parallelStream().forEach(userId -> {
+            try {
+                refresh(userId);
+            } catch (Exception e) {
+                log.warn("FollowSuggestionService: refresh failed for {}: {}", userId, e.getMessage());
+                dirty.add(userId);
+            }
+        })).join();
+        log.debug("FollowSuggestionService: refreshed {} users in {} ms", stale.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Users with cached suggestions who follow someone whose followees changed. Users without
+    // a cached entry compute fresh on their next request anyway, so they are not looked up.
+    private Set<String> cachedFollowersOfChanged() {
+        List<String> changed = List.copyOf(changedFollowees);
+        changedFollowees.removeAll(changed);
+        if (changed.isEmpty()) {
+            return Set.of();
+        }
+        List<String> cached;
+        synchronized (cache) {
+            cached = List.copyOf(cache.keySet());
+        }
+        if (cached.isEmpty()) {
+            return Set.of();
+        }
+        Query followers = Query.query(Criteria.where("followeeId").in(changed).and("followerId").in(cached));
+        return new HashSet<>(mongoTemplate.findDistinct(followers, "followerId", Follow.class, String.class));
+    }
+
+    private Suggestions refresh(String userId) {
+        Suggestions suggestions = new Suggestions(compute(userId), System.currentTimeMillis());
+        synchronized (cache) {
+            cache.put(userId, suggestions);
+        }
+        return suggestions;
+    }
+
+    List<FollowSuggestionResponse> compute(String userId) {
+        Set<String> followees = followGraphService.followeeSet(userId);
+        if (followees.isEmpty()) {
+            return List.of();
+        }
+
+        // Edges leaving someone userId follows, counted per candidate by the database; only the
+        // best candidateLimit come back, however many edges the followees have
+        List<String> excluded = new ArrayList<>(followees);
+        excluded.add(userId);
+        Aggregation secondDegree = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("followerId").in(followees).and("followeeId").nin(excluded)),
+                Aggregation.group("followeeId").count().as("mutual"),
+                Aggregation.sort(Sort.by(Sort.Order.desc("mutual"), Sort.Order.asc("_id"))),
+                Aggregation.limit(candidateLimit))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        Map<String, Long> mutualCounts = new LinkedHashMap<>();
+        for (Document row : mongoTemplate.aggregate(secondDegree, Follow.class, Document.class)) {
+            mutualCounts.put(row.getString("_id"), ((Number) row.get("mutual")).longValue());
+        }
+        if (mutualCounts.isEmpty()) {
+            return List.of();
+        }
+        List<String> candidates = List.copyOf(mutualCounts.keySet());
+
+        Map<String, Set<String>> tags = tagsByUser(userId, candidates);
+        Set<String> ownTags = tags.getOrDefault(userId, Set.of());
+
+        List<Scored> ranked = candidates.parallelStream()
+                .map(candidate -> {
+                    List<String> shared = tags.getOrDefault(candidate, Set.of()).stream()
+                            .filter(ownTags::contains)
+                            .sorted()
+                            .toList();
+                    long mutual = mutualCounts.get(candidate);
+                    return new Scored(candidate, (int) mutual, shared, mutual * MUTUAL_WEIGHT + shared.size() * TAG_WEIGHT);
+                })
+                .sorted(Comparator.comparingDouble(Scored::score).reversed().thenComparing(Scored::userId))
+                .limit(suggestionsPerUser)
+                .toList();
+
+        return hydrate(ranked);
+    }
+
+    // Distinct tags per author for userId and the candidates, collected by the database so
+    // only one set per author comes back rather than every post
+    private Map<String, Set<String>> tagsByUser(String userId, List<String> candidates) {
+        List<String> authors = new ArrayList<>(candidates.size() + 1);
+        authors.add(userId);
+        authors.addAll(candidates);
+
+        Aggregation distinctTags = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("userId").in(authors)),
+                Aggregation.project("userId", "tags"),
+                Aggregation.unwind("tags"),
+                Aggregation.group("userId").addToSet("tags").as("tags"));
+
+        Map<String, Set<String>> tags = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(distinctTags, SkillPost.class, Document.class)) {
+            tags.put(row.getString("_id"), new HashSet<>(row.getList("tags", String.class)));
+        }
+        return tags;
+    }
+
+    private List<FollowSuggestionResponse> hydrate(List<Scored> ranked) {
+        if (ranked.isEmpty()) {
+            return List.of();
+        }
+        Map<String, UserSummary> users = userRepository.findByIdIn(ranked.stream().map(Scored::userId).toList()).stream()
+                .collect(Collectors.toMap(UserSummary::getId, Function.identity()));
+
+        // Candidates whose account is gone are skipped
+        return ranked.stream()
+                .filter(scored -> users.containsKey(scored.userId()))
+                .map(scored -> {
+                    UserSummary user = users.get(scored.userId());
+                    return FollowSuggestionResponse.builder()
+                            .userId(user.getId())
+                            .name(user.getName())
+                            .username(user.getUsername())
+                            .profilePic(user.getProfilePic())
+                            .mutualCount(scored.mutualCount())
+                            .sharedTags(scored.sharedTags())
+                            .build();
+                })
+                .toList();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    private record Scored(String userId, int mutualCount, List<String> sharedTags, double score) {
+    }
+
+    private record Suggestions(List<FollowSuggestionResponse> items, long computedAt) {
+    }
+}
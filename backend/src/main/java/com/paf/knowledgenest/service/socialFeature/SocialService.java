@@ -1,69 +1,110 @@
 package com.paf.knowledgenest.service.socialFeature;
 
 
+import com.paf.knowledgenest.dto.requests.FollowMembershipRequestDTO;
 import com.paf.knowledgenest.dto.requests.FollowerRequestDTO;
+import com.paf.knowledgenest.dto.responses.FollowSuggestionResponse;
+import com.paf.knowledgenest.dto.responses.UserSummary;
 import com.paf.knowledgenest.dto.responses.skillPost.FollowerFollowingDTO;
 import com.paf.knowledgenest.dto.responses.skillPost.UserFollowResponse;
 import com.paf.knowledgenest.enums.CoinType;
 import com.paf.knowledgenest.model.notification.Notification;
 import com.paf.knowledgenest.model.user.User;
+import com.paf.knowledgenest.model.user.UserDeletionJob;
 import com.paf.knowledgenest.repository.user.UserRepository;
+import com.paf.knowledgenest.service.coins.CoinLeaderboardService;
+import com.paf.knowledgenest.service.coins.CoinLedgerService;
+import com.paf.knowledgenest.service.user.UserDeletionService;
 import com.paf.knowledgenest.service.notification.NotificationService;
 import com.paf.knowledgenest.utils.ApiResponse;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Slf4j
 @Service
 public class SocialService {
 
+    // Upper bound for one page of followers or followings
+    static final int MAX_FOLLOW_PAGE_SIZE = 100;
+
+    // Upper bound for one batch follow-membership check
+    static final int MAX_MEMBERSHIP_CHECK = 500;
 
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final MongoTemplate mongoTemplate;
+    private final FollowGraphService followGraphService;
+    private final FollowSuggestionService followSuggestionService;
+    private final CoinLedgerService coinLedgerService;
+    private final CoinLeaderboardService coinLeaderboardService;
+    private final UserDeletionService userDeletionService;
+    private final ExecutorService hydrationExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     @Autowired
-    public SocialService(UserRepository userRepository, NotificationService notificationService) {
+    public SocialService(UserRepository userRepository, NotificationService notificationService,
+                         MongoTemplate mongoTemplate, FollowGraphService followGraphService,
+                         FollowSuggestionService followSuggestionService, CoinLedgerService coinLedgerService,
+                         CoinLeaderboardService coinLeaderboardService, UserDeletionService userDeletionService) {
         this.userRepository = userRepository;
         this.notificationService = notificationService;
+        this.mongoTemplate = mongoTemplate;
+        this.followGraphService = followGraphService;
+        this.followSuggestionService = followSuggestionService;
+        this.coinLedgerService = coinLedgerService;
+        this.coinLeaderboardService = coinLeaderboardService;
+        this.userDeletionService = userDeletionService;
     }
 
     public ApiResponse<Boolean> followUser(FollowerRequestDTO followerRequestDTO) {
         try {
-            if (followerRequestDTO.getTargetUserId().equals(followerRequestDTO.getUserId())) {
+            String currentId = followerRequestDTO.getUserId();
+            String targetId = followerRequestDTO.getTargetUserId();
+            if (targetId.equals(currentId)) {
                 throw new RuntimeException("You can't follow yourself");
             }
 
-            User currentUser = userRepository.findById(followerRequestDTO.getUserId()).orElseThrow(() -> new RuntimeException("User Not Found"));
-
-            User targetUser = userRepository.findById(followerRequestDTO.getTargetUserId())
-                    .orElseThrow(() -> new RuntimeException("Followed User Not Found"));
-
-            // Initialize lists if null
-            if (currentUser.getFollowing() == null) currentUser.setFollowing(new ArrayList<>());
-            if (targetUser.getFollowers() == null) targetUser.setFollowers(new ArrayList<>());
-
-            // Prevent duplicate follows
-            if (currentUser.getFollowing().contains(targetUser.getId())) {
-                return ApiResponse.errorResponse("Already following " + targetUser.getName());
+            Map<String, String> names = findUserNames(currentId, targetId);
+            if (!names.containsKey(currentId)) {
+                throw new RuntimeException("User Not Found");
+            }
+            if (!names.containsKey(targetId)) {
+                throw new RuntimeException("Followed User Not Found");
             }
 
-            currentUser.getFollowing().add(targetUser.getId());
-            targetUser.getFollowers().add(currentUser.getId());
-
-            userRepository.save(currentUser);
-            userRepository.save(targetUser);
-
-            this.addUserCoins(targetUser.getId(), CoinType.FOLLOW);
-
-            notificationService.createNotificationBySystem(
-                    targetUser.getId(), "You are followed by " + currentUser.getName(), Notification.NotificationType.FOLLOW
+            // The unique edge makes a repeated follow a no-op, so the reward is granted once
+            if (!followGraphService.follow(currentId, targetId)) {
+                return ApiResponse.errorResponse("Already following " + names.get(targetId));
+            }
+            followSuggestionService.markDirty(currentId);
+
+            // One reward per follower, however often they unfollow and follow again
+            this.addUserCoins(targetId, CoinType.FOLLOW, currentId + ":" + targetId);
+
+            // Sent with the actor so follows can be coalesced ("Alice and 4 others started following you")
+            notificationService.createNotification(
+                    targetId,
+                    currentId,
+                    Notification.NotificationType.FOLLOW,
+                    null,
+                    "USER",
+                    null
             );
 
-            return ApiResponse.successResponse(("Followed " + targetUser.getName() + " Successfully"), true);
+            return ApiResponse.successResponse(("Followed " + names.get(targetId) + " Successfully"), true);
         } catch (RuntimeException e) {
             return ApiResponse.errorResponse(e.getMessage());
         } catch (Exception e) {
@@ -73,31 +114,26 @@ public class SocialService {
 
     public ApiResponse<Boolean> unfollowUser(FollowerRequestDTO followerRequestDTO) {
         try {
-            if (followerRequestDTO.getTargetUserId().equals(followerRequestDTO.getUserId())) {
+            String currentId = followerRequestDTO.getUserId();
+            String targetId = followerRequestDTO.getTargetUserId();
+            if (targetId.equals(currentId)) {
                 throw new RuntimeException("You can't unfollow yourself");
             }
 
-            User user = userRepository.findById(followerRequestDTO.getUserId())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            User followedUser = userRepository.findById(followerRequestDTO.getTargetUserId())
-                    .orElseThrow(() -> new RuntimeException("User to unfollow not found"));
-
-            if (user.getFollowing() == null || !user.getFollowing().contains(followedUser.getId())) {
-                return ApiResponse.errorResponse("You are not following " + followedUser.getName());
+            Map<String, String> names = findUserNames(currentId, targetId);
+            if (!names.containsKey(currentId)) {
+                throw new RuntimeException("User not found");
             }
-
-            // Remove each other's IDs
-            user.getFollowing().remove(followedUser.getId());
-
-            if (followedUser.getFollowers() != null) {
-                followedUser.getFollowers().remove(user.getId());
+            if (!names.containsKey(targetId)) {
+                throw new RuntimeException("User to unfollow not found");
             }
 
-            userRepository.save(user);
-            userRepository.save(followedUser);
+            if (!followGraphService.unfollow(currentId, targetId)) {
+                return ApiResponse.errorResponse("You are not following " + names.get(targetId));
+            }
+            followSuggestionService.markDirty(currentId);
 
-            return ApiResponse.successResponse("Unfollowed " + followedUser.getName() + " successfully", true);
+            return ApiResponse.successResponse("Unfollowed " + names.get(targetId) + " successfully", true);
         } catch (RuntimeException e) {
             return ApiResponse.errorResponse(e.getMessage());
         } catch (Exception e) {
@@ -105,19 +141,30 @@ public class SocialService {
         }
     }
 
+    // Existence check and display names in one query, without loading the full documents
+    private Map<String, String> findUserNames(String... userIds) {
+        Query query = Query.query(Criteria.where("_id").in((Object[]) userIds));
+        query.fields().include("name");
+        Map<String, String> names = new HashMap<>();
+        for (User user : mongoTemplate.find(query, User.class)) {
+            names.put(user.getId(), user.getName());
+        }
+        return names;
+    }
+
 
-    public ApiResponse<List<User>> getFollowingUsers(String userId) {
+    public ApiResponse<List<UserSummary>> getFollowingUsers(String userId) {
         try {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+            if (!userRepository.existsById(userId)) {
+                throw new RuntimeException("User not found");
+            }
 
-            List<String> followingIds = user.getFollowing();
-            if (followingIds == null || followingIds.isEmpty()) {
+            List<String> followingIds = followGraphService.followeeIds(userId);
+            if (followingIds.isEmpty()) {
                 return ApiResponse.successResponse("User is not following anyone", new ArrayList<>());
             }
 
-            List<User> followingUsers = userRepository.findAllById(followingIds);
-            return ApiResponse.successResponse("Following users fetched", followingUsers);
+            return ApiResponse.successResponse("Following users fetched", summariesInOrder(followingIds));
         } catch (RuntimeException e) {
             return ApiResponse.errorResponse(e.getMessage());
         } catch (Exception e) {
@@ -125,15 +172,21 @@ public class SocialService {
         }
     }
 
-    public ApiResponse<Boolean> deleteUser(String userId) {
+    public ApiResponse<UserDeletionJob> deleteUser(String userId) {
         try {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+            if (!userRepository.existsById(userId)) {
+                throw new RuntimeException("User not found");
+            }
+
+            // Record the cleanup first so the user's posts, edges, etc. are removed even if
+            // we stop right after the user document is gone; the job runs in the background
+            UserDeletionJob job = userDeletionService.schedule(userId);
+            coinLeaderboardService.removeUser(userId);
 
             // Deleting the user from the database
-            userRepository.delete(user);
+            userRepository.deleteById(userId);
 
-            return ApiResponse.successResponse("User deleted successfully", true);
+            return ApiResponse.successResponse("User deleted; cleanup is running in the background", job);
         } catch (RuntimeException e) {
             return ApiResponse.errorResponse(e.getMessage());
         } catch (Exception e) {
@@ -141,46 +194,37 @@ public class SocialService {
         }
     }
 
+    public ApiResponse<UserDeletionJob> getDeletionStatus(String userId) {
+        return userDeletionService.getJob(userId)
+                .map(job -> ApiResponse.successResponse("Deletion status fetched", job))
+                .orElseGet(() -> ApiResponse.errorResponse("No deletion found for this user"));
+    }
 
-    public ApiResponse<FollowerFollowingDTO> getFollowersAndFolowingUsers(String userId) {
+
+    public ApiResponse<FollowerFollowingDTO> getFollowersAndFolowingUsers(String userId, int page, int size) {
         try {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            List<String> followers = user.getFollowers();
-            List<String> following = user.getFollowing();
-
-            // Handle potential nulls
-            if (followers == null) followers = new ArrayList<>();
-            if (following == null) following = new ArrayList<>();
-
-            List<UserFollowResponse> followerDTO = followers.stream().map(followerId -> {
-                User follower = userRepository.findById(followerId)
-                        .orElseThrow(() -> new RuntimeException("User not found"));
-                return UserFollowResponse.builder()
-                        .email(follower.getEmail())
-                        .name(follower.getName())
-                        .username(follower.getUsername())
-                        .profilePic(follower.getProfilePic())
-                        .userId(follower.getId())
-                        .build();
-            }).toList();
-
-            List<UserFollowResponse> followingDTO = following.stream().map(followingId -> {
-                User followingUser = userRepository.findById(followingId)
-                        .orElseThrow(() -> new RuntimeException("User not found"));
-                return UserFollowResponse.builder()
-                        .email(followingUser.getEmail())
-                        .name(followingUser.getName())
-                        .username(followingUser.getUsername())
-                        .profilePic(followingUser.getProfilePic())
-                        .userId(followingUser.getId())
-                        .build();
-            }).toList();
+            // Only the denormalized counts, not the whole user document
+            Query ownerQuery = Query.query(Criteria.where("_id").is(userId));
+            ownerQuery.fields().include("followerCount").include("followingCount");
+            User user = mongoTemplate.findOne(ownerQuery, User.class);
+            if (user == null) {
+                throw new RuntimeException("User not found");
+            }
+
+            int pageSize = Math.max(1, Math.min(size, MAX_FOLLOW_PAGE_SIZE));
+            int pageNumber = Math.max(0, page);
+
+            // The two pages are independent, so they are read and hydrated side by side
+            CompletableFuture<List<UserFollowResponse>> followerPage = CompletableFuture.supplyAsync(
+                    () -> hydrate(followGraphService.followerPage(userId, pageNumber, pageSize)), hydrationExecutor);
+            CompletableFuture<List<UserFollowResponse>> followingPage = CompletableFuture.supplyAsync(
+                    () -> hydrate(followGraphService.followingPage(userId, pageNumber, pageSize)), hydrationExecutor);
 
             FollowerFollowingDTO response = new FollowerFollowingDTO();
-            response.setFollowers(followerDTO);
-            response.setFollowings(followingDTO);
+            response.setFollowers(followerPage.join());
+            response.setFollowings(followingPage.join());
+            response.setFollowerCount(user.getFollowerCount());
+            response.setFollowingCount(user.getFollowingCount());
 
             return ApiResponse.successResponse("Followers/Following fetched", response);
 
@@ -190,25 +234,71 @@ public class SocialService {
         }
     }
 
+    // One projected $in query per list, in the list's order
+    private List<UserFollowResponse> hydrate(List<String> ids) {
+        return summariesInOrder(ids).stream()
+                .map(user -> UserFollowResponse.builder()
+                        .email(user.getEmail())
+                        .name(user.getName())
+                        .username(user.getUsername())
+                        .profilePic(user.getProfilePic())
+                        .userId(user.getId())
+                        .build())
+                .toList();
+    }
+
+    // Users that no longer exist are skipped
+    private List<UserSummary> summariesInOrder(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, UserSummary> byId = new HashMap<>();
+        for (UserSummary user : userRepository.findByIdIn(ids)) {
+            byId.put(user.getId(), user);
+        }
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hydrationExecutor.shutdown();
+    }
+
     public boolean isUserFollowing(String followerId, String followeeId) {
-        User follower = userRepository.findById(followerId)
-                .orElseThrow(() -> new RuntimeException("Follower not found"));
+        if (!userRepository.existsById(followerId)) {
+            throw new RuntimeException("Follower not found");
+        }
+        // Answered from the follower's cached followee set
+        return followGraphService.isFollowing(followerId, followeeId);
+    }
 
-        List<String> followingList = follower.getFollowing();
-        return followingList != null && followingList.contains(followeeId);
+    public ApiResponse<List<FollowSuggestionResponse>> getSuggestions(String userId, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_FOLLOW_PAGE_SIZE));
+        return ApiResponse.successResponse("Suggestions fetched", followSuggestionService.getSuggestions(userId, size));
     }
 
-    public void addUserCoins(String userId, CoinType coinType) {
-        try {
-            User user = userRepository.findById(userId).orElseThrow(
-                    () -> new RuntimeException("User not found")
-            );
+    // "Which of these users does followerId follow?" for a whole list of authors at once
+    public ApiResponse<Map<String, Boolean>> checkFollowing(FollowMembershipRequestDTO request) {
+        List<String> userIds = request.getUserIds() != null ? request.getUserIds() : List.of();
+        if (request.getFollowerId() == null) {
+            return ApiResponse.errorResponse("Follower id is required");
+        }
+        if (userIds.size() > MAX_MEMBERSHIP_CHECK) {
+            return ApiResponse.errorResponse("At most " + MAX_MEMBERSHIP_CHECK + " user ids can be checked at once");
+        }
+        return ApiResponse.successResponse("Check successful",
+                followGraphService.followingAmong(request.getFollowerId(), userIds));
+    }
 
-            user.setUserCoins(user.getUserCoins() + coinType.getPoints());
-            userRepository.save(user);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+    // idempotencyKey identifies the event being rewarded; the same key never pays out twice
+    public void addUserCoins(String userId, CoinType coinType, String idempotencyKey) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
         }
+        coinLedgerService.award(userId, coinType, idempotencyKey);
     }
 
 
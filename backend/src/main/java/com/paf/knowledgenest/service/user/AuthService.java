@@ -7,7 +7,9 @@ import com.paf.knowledgenest.dto.responses.UserResponse;
 import com.paf.knowledgenest.model.user.User;
 import com.paf.knowledgenest.repository.user.UserRepository;
 import com.paf.knowledgenest.security.JwtUtils;
+import com.paf.knowledgenest.service.socialFeature.FollowGraphService;
 import com.paf.knowledgenest.utils.ApiResponse;
+import com.paf.knowledgenest.utils.AvatarUrls;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -29,13 +31,16 @@ public class AuthService {
     private final AuthenticationManager authenticationManager;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtils jwtUtils;
+    private final FollowGraphService followGraphService;
 
     @Autowired
-    public AuthService(UserRepository userRepository, AuthenticationManager authenticationManager, PasswordEncoder passwordEncoder, JwtUtils jwtUtils) {
+    public AuthService(UserRepository userRepository, AuthenticationManager authenticationManager, PasswordEncoder passwordEncoder, JwtUtils jwtUtils,
+                       FollowGraphService followGraphService) {
         this.userRepository = userRepository;
         this.authenticationManager = authenticationManager;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtils = jwtUtils;
+        this.followGraphService = followGraphService;
     }
 
     public ApiResponse<String> registerUser(RegisterRequest request) {
@@ -101,8 +106,10 @@ public class AuthService {
                           .role("ROLE_" + user.getRole())
                           .email(user.getEmail())
                           .name(user.getName())
-                          .followers(user.getFollowers())
-                          .following(user.getFollowing())
+                          .profilePic(AvatarUrls.urlFor(user.getId(), user.getAvatarHash()))
+                          .followerCount(user.getFollowerCount())
+                          .followingCount(user.getFollowingCount())
+                          .following(followGraphService.followeeIds(user.getId()))
                             .userCoins(user.getUserCoins())
                           .build())
                     .build();
@@ -138,9 +145,11 @@ public class AuthService {
                         .id(user.getId())
                         .name(user.getName())
                         .email(user.getEmail())
+                        .profilePic(AvatarUrls.urlFor(user.getId(), user.getAvatarHash()))
                         .role("ROLE_" + user.getRole())
-                        .followers(user.getFollowers())
-                        .following(user.getFollowing())
+                        .followerCount(user.getFollowerCount())
+                        .followingCount(user.getFollowingCount())
+                        .following(followGraphService.followeeIds(user.getId()))
                         .build())
                 .build();
 
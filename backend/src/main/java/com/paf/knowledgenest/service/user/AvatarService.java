@@ -0,0 +1,209 @@
+package com.paf.knowledgenest.service.user;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.paf.knowledgenest.model.user.User;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.gridfs.GridFsCriteria;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Profile pictures, kept in GridFS instead of inside the user document. Files are named by
+ * the SHA-256 of their bytes, so identical uploads are stored once and a given name always
+ * holds the same bytes; the user only carries that hash.
+ *
+ * A shared file is dropped once no user points at it. Pointing a user at a hash and dropping
+ * that hash can interleave, so each side checks again afterwards and the file is stored
+ * again if it was dropped while in use.
+ */
+@Service
+public class AvatarService {
+
+    static final String FILE_PREFIX = "avatar/";
+
+    private final GridFsTemplate gridFsTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final AvatarThumbnailService thumbnailService;
+    private final long maxBytes;
+
+    public AvatarService(
+            GridFsTemplate gridFsTemplate,
+            MongoTemplate mongoTemplate,
+            AvatarThumbnailService thumbnailService,
+            @Value("${avatars.max-bytes:5242880}") long maxBytes) {
+        this.gridFsTemplate = gridFsTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.thumbnailService = thumbnailService;
+        this.maxBytes = maxBytes;
+    }
+
+    // Stores the picture and points the user at it; returns the new hash. The resized
+    // variants are made in the background.
+    public String replace(String userId, byte[] bytes) {
+        String hash = store(bytes);
+        thumbnailService.submit(hash);
+        User previous = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(userId)),
+                new Update().set("avatarHash", hash),
+                User.class);
+        // A concurrent deleteIfUnused may have dropped a file we found already stored
+        restoreIfMissing(hash, bytes);
+        if (previous != null && previous.getAvatarHash() != null && !previous.getAvatarHash().equals(hash)) {
+            deleteIfUnused(previous.getAvatarHash(), null);
+        }
+        return hash;
+    }
+
+    public void remove(String userId) {
+        User previous = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(userId)),
+                new Update().unset("avatarHash"),
+                User.class);
+        if (previous != null && previous.getAvatarHash() != null) {
+            deleteIfUnused(previous.getAvatarHash(), null);
+        }
+    }
+
+    // Drops the picture of a deleted user unless someone else uses it. The user document may
+    // not be gone yet, so it does not count as a use.
+    public void release(String userId, String hash) {
+        deleteIfUnused(hash, userId);
+    }
+
+    // Writes the bytes once per distinct content; returns their hash
+    public String store(byte[] bytes) {
+        if (bytes.length == 0 || bytes.length > maxBytes) {
+            throw new IllegalArgumentException("Profile picture must be between 1 byte and " + maxBytes + " bytes");
+        }
+        String contentType = detectContentType(bytes);
+        if (contentType == null) {
+            throw new IllegalArgumentException("Profile picture must be a PNG, JPEG, GIF or WebP image");
+        }
+
+        String hash = sha256(bytes);
+        if (find(hash) == null) {
+            gridFsTemplate.store(new ByteArrayInputStream(bytes), FILE_PREFIX + hash, contentType,
+                    new Document("hash", hash));
+        }
+        return hash;
+    }
+
+    // The stored picture, or null when there is none
+    public GridFsResource open(String hash) {
+        GridFSFile file = find(hash);
+        return file == null ? null : gridFsTemplate.getResource(file);
+    }
+
+    // The variant closest above the requested size, falling back to the original while it is
+    // not generated yet or when more than the largest variant is asked for
+    public GridFsResource open(String hash, int requestedSize) {
+        int size = thumbnailService.snap(requestedSize);
+        if (size > 0) {
+            GridFsResource variant = thumbnailService.open(hash, size);
+            if (variant != null) {
+                return variant;
+            }
+        }
+        return open(hash);
+    }
+
+    // True when a request for this size is answered with the original rather than a variant
+    public boolean isOriginalSize(int requestedSize) {
+        return thumbnailService.snap(requestedSize) == 0;
+    }
+
+    public static boolean isVariant(GridFsResource resource) {
+        return resource.getFilename().indexOf('/', FILE_PREFIX.length()) >= 0;
+    }
+
+    private GridFSFile find(String hash) {
+        return gridFsTemplate.findOne(Query.query(GridFsCriteria.whereFilename().is(FILE_PREFIX + hash)));
+    }
+
+    // Content-addressed files can be shared, so one is only dropped once no user points at it.
+    // The bytes are kept until a second check, which puts the file back if replace() pointed
+    // a user at it in the meantime.
+    private void deleteIfUnused(String hash, String ignoredUserId) {
+        Criteria users = Criteria.where("avatarHash").is(hash);
+        if (ignoredUserId != null) {
+            users.and("_id").ne(ignoredUserId);
+        }
+        if (mongoTemplate.exists(Query.query(users), User.class)) {
+            return;
+        }
+        GridFsResource file = open(hash);
+        if (file == null) {
+            return;
+        }
+        byte[] bytes;
+        try (InputStream in = file.getInputStream()) {
+            bytes = in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read avatar " + hash, e);
+        }
+
+        gridFsTemplate.delete(Query.query(GridFsCriteria.whereFilename().is(FILE_PREFIX + hash)));
+        thumbnailService.delete(hash);
+        if (mongoTemplate.exists(Query.query(users), User.class)) {
+            restoreIfMissing(hash, bytes);
+        }
+    }
+
+    private void restoreIfMissing(String hash, byte[] bytes) {
+        if (find(hash) == null) {
+            store(bytes);
+            thumbnailService.submit(hash);
+        }
+    }
+
+    // From the file's leading bytes; the client's Content-Type is not trusted. Null when not a supported image.
+    static String detectContentType(byte[] bytes) {
+        if (startsWith(bytes, 0, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (startsWith(bytes, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(bytes, 0, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(bytes, 0, 'R', 'I', 'F', 'F') && startsWith(bytes, 8, 'W', 'E', 'B', 'P')) {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, int... magic) {
+        if (bytes.length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((bytes[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
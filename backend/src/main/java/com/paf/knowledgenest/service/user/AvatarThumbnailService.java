@@ -0,0 +1,250 @@
+package com.paf.knowledgenest.service.user;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsCriteria;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Square resized copies of each avatar (32, 64, 128 and 256 px by default), so a list of
+ * users does not download full-size uploads.
+ *
+ * Variants are produced after the upload has returned, on a small bounded pool. They are
+ * stored next to the original as avatar/{hash}/{size}; the name depends only on the
+ * original's bytes and the size, so it never has to be invalidated. When the pool is full,
+ * or for avatars stored before variants existed, the variant is generated the first time
+ * it is asked for and the original is served until then.
+ *
+ * Originals that cannot be resized, because no reader decodes the format (WebP) or because
+ * they have more pixels than avatars.thumbnails.max-pixels, get an empty avatar/{hash}/none
+ * marker instead, so asking for them again serves the original without queuing more work.
+ * Dimensions are read from the header before decoding, so an oversized image is never
+ * expanded in memory.
+ */
+@Slf4j
+@Service
+public class AvatarThumbnailService {
+
+    private final GridFsTemplate gridFsTemplate;
+    private final int[] sizes;
+    private final long maxPixels;
+    private final ThreadPoolExecutor pool;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final Counter generatedCounter;
+    private final Counter rejectedCounter;
+
+    public AvatarThumbnailService(
+            GridFsTemplate gridFsTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${avatars.thumbnails.sizes:32,64,128,256}") int[] sizes,
+            @Value("${avatars.thumbnails.threads:2}") int threads,
+            @Value("${avatars.thumbnails.queue-capacity:200}") int queueCapacity,
+            @Value("${avatars.thumbnails.max-pixels:16777216}") long maxPixels) {
+        this.gridFsTemplate = gridFsTemplate;
+        this.sizes = Arrays.stream(sizes).sorted().distinct().toArray();
+        this.maxPixels = maxPixels;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "avatar-thumbnails-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("avatars.thumbnails.queue.depth", pool, p -> p.getQueue().size())
+                .description("Avatars waiting for their resized variants")
+                .register(meterRegistry);
+        this.generatedCounter = Counter.builder("avatars.thumbnails.generated")
+                .description("Avatars whose resized variants were generated")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("avatars.thumbnails.rejected")
+                .description("Variant generations skipped because the pool was full")
+                .register(meterRegistry);
+    }
+
+    // Smallest variant at least as large as requested, or 0 to serve the original
+    public int snap(int requested) {
+        for (int size : sizes) {
+            if (size >= requested) {
+                return size;
+            }
+        }
+        return 0;
+    }
+
+    // The stored variant, or null while it does not exist yet (generation is then queued) or
+    // when the original cannot have variants. The marker is looked up in the same query.
+    public GridFsResource open(String hash, int size) {
+        GridFSFile file = gridFsTemplate.findOne(Query.query(
+                GridFsCriteria.whereFilename().in(fileName(hash, size), markerName(hash))));
+        if (file == null) {
+            submit(hash);
+            return null;
+        }
+        if (file.getFilename().equals(markerName(hash))) {
+            return null;
+        }
+        return gridFsTemplate.getResource(file);
+    }
+
+    // Queues generation of every variant; never blocks the caller
+    public void submit(String hash) {
+        if (!inFlight.add(hash)) {
+            return;
+        }
+        try {
+            pool.execute(() -> {
+                try {
+                    generate(hash);
+                } finally {
+                    inFlight.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(hash);
+            rejectedCounter.increment();
+        }
+    }
+
+    // Removes the variants of an original that is being deleted
+    public void delete(String hash) {
+        gridFsTemplate.delete(Query.query(GridFsCriteria.whereFilename().regex("^" + AvatarService.FILE_PREFIX + hash + "/")));
+    }
+
+    private void generate(String hash) {
+        GridFSFile original = gridFsTemplate.findOne(Query.query(GridFsCriteria.whereFilename().is(AvatarService.FILE_PREFIX + hash)));
+        if (original == null || gridFsTemplate.findOne(Query.query(GridFsCriteria.whereFilename().is(markerName(hash)))) != null) {
+            return;
+        }
+        try {
+            BufferedImage source;
+            try (InputStream in = gridFsTemplate.getResource(original).getInputStream()) {
+                source = decode(hash, in);
+            }
+            if (source == null) {
+                // The original is served at every size from now on
+                gridFsTemplate.store(new ByteArrayInputStream(new byte[0]), markerName(hash),
+                        new Document("hash", hash));
+                return;
+            }
+
+            boolean opaque = !source.getColorModel().hasAlpha();
+            String format = opaque ? "jpg" : "png";
+            BufferedImage square = cropToSquare(source);
+            for (int size : sizes) {
+                String name = fileName(hash, size);
+                if (gridFsTemplate.findOne(Query.query(GridFsCriteria.whereFilename().is(name))) != null) {
+                    continue;
+                }
+                byte[] encoded = encode(resize(square, Math.min(size, square.getWidth()), opaque), format);
+                gridFsTemplate.store(new ByteArrayInputStream(encoded), name, opaque ? "image/jpeg" : "image/png",
+                        new Document("hash", hash).append("size", size));
+            }
+            generatedCounter.increment();
+        } catch (IOException | RuntimeException e) {
+            log.warn("AvatarThumbnailService: failed to generate variants for {}: {}", hash, e.getMessage());
+        }
+    }
+
+    // Null when the image cannot or should not be resized
+    private BufferedImage decode(String hash, InputStream in) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                log.debug("AvatarThumbnailService: no reader for avatar {}", hash);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("AvatarThumbnailService: avatar {} has {} pixels, not resizing it", hash, pixels);
+                    return null;
+                }
+                return reader.read(0);
+            } catch (IIOException e) {
+                log.debug("AvatarThumbnailService: cannot decode avatar {}: {}", hash, e.getMessage());
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage cropToSquare(BufferedImage image) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        return image.getSubimage((image.getWidth() - side) / 2, (image.getHeight() - side) / 2, side, side);
+    }
+
+    // Halves the image until it is within 2x of the target, then scales the rest; a single
+    // bilinear step from a large original would skip pixels and alias
+    private static BufferedImage resize(BufferedImage image, int target, boolean opaque) {
+        BufferedImage current = image;
+        int side = image.getWidth();
+        do {
+            side = Math.max(target, side / 2);
+            BufferedImage next = new BufferedImage(side, side, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, side, side, null);
+            g.dispose();
+            current = next;
+        } while (side > target);
+        return current;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    private static String fileName(String hash, int size) {
+        return AvatarService.FILE_PREFIX + hash + "/" + size;
+    }
+
+    private static String markerName(String hash) {
+        return AvatarService.FILE_PREFIX + hash + "/none";
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+}
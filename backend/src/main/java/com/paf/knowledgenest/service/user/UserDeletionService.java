@@ -0,0 +1,377 @@
+package com.paf.knowledgenest.service.user;
+
+import com.paf.knowledgenest.model.challenges.ChallengeAttempt;
+import com.paf.knowledgenest.model.coins.CoinLedgerEntry;
+import com.paf.knowledgenest.model.notification.Notification;
+import com.paf.knowledgenest.model.skillpost.Comment;
+import com.paf.knowledgenest.model.skillpost.SkillPost;
+import com.paf.knowledgenest.model.user.User;
+import com.paf.knowledgenest.model.user.UserDeletionJob;
+import com.paf.knowledgenest.model.user.UserDeletionJob.Status;
+import com.paf.knowledgenest.model.user.UserDeletionJob.Step;
+import com.paf.knowledgenest.repository.skillpost.SkillPostRepository;
+import com.paf.knowledgenest.service.challenges.ChallengeLeaderboardService;
+import com.paf.knowledgenest.service.challenges.ChallengeStatsService;
+import com.paf.knowledgenest.service.notification.NotificationCounterService;
+import com.paf.knowledgenest.service.socialFeature.FollowGraphService;
+import com.paf.knowledgenest.utils.OptimisticRetryTemplate;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Removes what a deleted user left in other collections: their posts, likes, comments,
+ * notifications, follow edges, challenge attempts, coin ledger entries and profile picture.
+ *
+ * Deleting the account only records a job; the cleanup runs here on its own thread in small
+ * batches with a pause between them, so no request waits on it and foreground writers are
+ * never starved. Every batch removes what it handled from the step's query, so a batch can
+ * simply be re-run after a crash, and progress is saved after each one. Jobs are claimed with
+ * a lease, so only one worker runs a job at a time.
+ */
+@Slf4j
+@Service
+public class UserDeletionService {
+
+    // Replies can nest; comment lookups check this many levels
+    private static final int MAX_REPLY_DEPTH = 5;
+
+    private final MongoTemplate mongoTemplate;
+    private final SkillPostRepository skillPostRepository;
+    private final FollowGraphService followGraphService;
+    private final NotificationCounterService notificationCounterService;
+    private final ChallengeStatsService challengeStatsService;
+    private final ChallengeLeaderboardService challengeLeaderboardService;
+    private final AvatarService avatarService;
+    private final OptimisticRetryTemplate retryTemplate;
+    private final int batchSize;
+    private final long throttleMillis;
+    private final long leaseMillis;
+    private final long retryDelayMillis;
+    private final int maxFailures;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-deletion");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopping;
+
+    public UserDeletionService(
+            MongoTemplate mongoTemplate,
+            SkillPostRepository skillPostRepository,
+            FollowGraphService followGraphService,
+            NotificationCounterService notificationCounterService,
+            ChallengeStatsService challengeStatsService,
+            ChallengeLeaderboardService challengeLeaderboardService,
+            AvatarService avatarService,
+            OptimisticRetryTemplate retryTemplate,
+            @Value("${users.deletion.batch-size:500}") int batchSize,
+            @Value("${users.deletion.throttle-ms:200}") long throttleMillis,
+            @Value("${users.deletion.lease-ms:120000}") long leaseMillis,
+            @Value("${users.deletion.retry-delay-ms:60000}") long retryDelayMillis,
+            @Value("${users.deletion.max-failures:5}") int maxFailures) {
+        this.mongoTemplate = mongoTemplate;
+        this.skillPostRepository = skillPostRepository;
+        this.followGraphService = followGraphService;
+        this.notificationCounterService = notificationCounterService;
+        this.challengeStatsService = challengeStatsService;
+        this.challengeLeaderboardService = challengeLeaderboardService;
+        this.avatarService = avatarService;
+        this.retryTemplate = retryTemplate;
+        this.batchSize = batchSize;
+        this.throttleMillis = throttleMillis;
+        this.leaseMillis = leaseMillis;
+        this.retryDelayMillis = retryDelayMillis;
+        this.maxFailures = maxFailures;
+    }
+
+    // Records the cleanup for a user about to be deleted; an existing job is returned as is
+    public UserDeletionJob schedule(String userId) {
+        UserDeletionJob job = new UserDeletionJob(userId);
+        Query user = Query.query(Criteria.where("_id").is(userId));
+        user.fields().include("avatarHash");
+        User existing = mongoTemplate.findOne(user, User.class);
+        if (existing != null) {
+            job.setAvatarHash(existing.getAvatarHash());
+        }
+        try {
+            mongoTemplate.insert(job);
+        } catch (DuplicateKeyException e) {
+            // Already scheduled
+        }
+        worker.execute(this::drain);
+        return mongoTemplate.findById(userId, UserDeletionJob.class);
+    }
+
+    public Optional<UserDeletionJob> getJob(String userId) {
+        return Optional.ofNullable(mongoTemplate.findById(userId, UserDeletionJob.class));
+    }
+
+    // Picks up jobs left behind by a restart or waiting for a retry
+    @Scheduled(fixedDelayString = "${users.deletion.poll-ms:60000}",
+               initialDelayString = "${users.deletion.poll-initial-delay-ms:30000}")
+    public void resumePending() {
+        worker.execute(this::drain);
+    }
+
+    private void drain() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            UserDeletionJob job;
+            while (!stopping && (job = claimNext()) != null) {
+                run(job);
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private UserDeletionJob claimNext() {
+        LocalDateTime now = LocalDateTime.now();
+        Query due = Query.query(Criteria.where("status").in(Status.PENDING, Status.RUNNING)
+                .orOperator(Criteria.where("leaseUntil").is(null), Criteria.where("leaseUntil").lt(now)));
+        return mongoTemplate.findAndModify(due,
+                new Update().set("status", Status.RUNNING).set("leaseUntil", now.plusNanos(leaseMillis * 1_000_000)),
+                FindAndModifyOptions.options().returnNew(true),
+                UserDeletionJob.class);
+    }
+
+    void run(UserDeletionJob job) {
+        log.info("UserDeletionService: cleaning up after user {} from step {}", job.getUserId(), job.getStep());
+        try {
+            while (job.getStep() != null && !stopping) {
+                int handled = runBatch(job);
+                job.getProcessed().merge(job.getStep().name(), (long) handled, Long::sum);
+                if (handled < batchSize) {
+                    Step[] steps = Step.values();
+                    int next = job.getStep().ordinal() + 1;
+                    job.setStep(next < steps.length ? steps[next] : null);
+                }
+                checkpoint(job);
+                pause();
+            }
+            if (job.getStep() == null) {
+                job.setStatus(Status.COMPLETED);
+                job.setCompletedAt(LocalDateTime.now());
+                job.setLeaseUntil(null);
+                job.setLastError(null);
+                mongoTemplate.save(job);
+                log.info("UserDeletionService: finished cleaning up after user {}: {}", job.getUserId(), job.getProcessed());
+            }
+        } catch (Exception e) {
+            job.setFailures(job.getFailures() + 1);
+            job.setLastError(e.getMessage());
+            if (job.getFailures() >= maxFailures) {
+                job.setStatus(Status.FAILED);
+                job.setLeaseUntil(null);
+                log.error("UserDeletionService: giving up on user {} at step {}: {}", job.getUserId(), job.getStep(), e.getMessage());
+            } else {
+                // Keep the lease until the retry is due
+                job.setLeaseUntil(LocalDateTime.now().plusNanos(retryDelayMillis * 1_000_000));
+                log.warn("UserDeletionService: step {} failed for user {}, retrying later: {}", job.getStep(), job.getUserId(), e.getMessage());
+            }
+            job.setUpdatedAt(LocalDateTime.now());
+            mongoTemplate.save(job);
+        }
+    }
+
+    private void checkpoint(UserDeletionJob job) {
+        LocalDateTime now = LocalDateTime.now();
+        job.setUpdatedAt(now);
+        job.setLeaseUntil(now.plusNanos(leaseMillis * 1_000_000));
+        mongoTemplate.save(job);
+    }
+
+    // Handles one batch of the job's step; fewer than batchSize means the step is done
+    int runBatch(UserDeletionJob job) {
+        String userId = job.getUserId();
+        return switch (job.getStep()) {
+            case POSTS -> removePosts(userId);
+            case LIKES -> removeLikes(userId);
+            case COMMENTS -> removeComments(userId);
+            case NOTIFICATIONS -> removeNotifications(userId);
+            case FOLLOWS -> followGraphService.removeEdges(userId, batchSize);
+            case CHALLENGE_ATTEMPTS -> removeAttempts(userId);
+            case COIN_LEDGER -> removeBatch(Criteria.where("userId").is(userId), CoinLedgerEntry.class);
+            case AVATAR -> removeAvatar(job);
+        };
+    }
+
+    // The user's posts, with the notifications that point at them
+    private int removePosts(String userId) {
+        List<String> postIds = idsOf(Criteria.where("userId").is(userId), SkillPost.class);
+        if (postIds.isEmpty()) {
+            return 0;
+        }
+        Criteria aboutPosts = Criteria.where("resourceId").in(postIds);
+        while (removeNotificationBatch(aboutPosts) == batchSize) {
+            pause();
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(postIds)), SkillPost.class);
+        return postIds.size();
+    }
+
+    // Bumps version too, so a concurrent read-modify-save of the post retries instead of restoring the like
+    private int removeLikes(String userId) {
+        List<String> postIds = idsOf(Criteria.where("likedBy").is(userId), SkillPost.class);
+        if (postIds.isEmpty()) {
+            return 0;
+        }
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(postIds).and("likedBy").is(userId)),
+                new Update().pull("likedBy", userId).inc("likes", -1).inc("version", 1),
+                SkillPost.class);
+        return postIds.size();
+    }
+
+    // Comments are nested in the post, so each post is rewritten through the usual optimistic save
+    private int removeComments(String userId) {
+        List<Criteria> byAuthor = new ArrayList<>();
+        String path = "comments";
+        for (int depth = 0; depth < MAX_REPLY_DEPTH; depth++) {
+            byAuthor.add(Criteria.where(path + ".userId").is(userId));
+            path += ".replies";
+        }
+        List<String> postIds = idsOf(new Criteria().orOperator(byAuthor), SkillPost.class);
+        for (String postId : postIds) {
+            retryTemplate.execute("removeUserComments", () -> {
+                SkillPost post = skillPostRepository.findById(postId).orElse(null);
+                if (post != null && stripComments(post.getComments(), userId)) {
+                    skillPostRepository.save(post);
+                }
+                return null;
+            });
+        }
+        return postIds.size();
+    }
+
+    // Drops the user's comments, replies under them included, at any depth
+    private boolean stripComments(List<Comment> comments, String userId) {
+        if (comments == null) {
+            return false;
+        }
+        boolean changed = comments.removeIf(comment -> userId.equals(comment.getUserId()));
+        for (Comment comment : comments) {
+            changed |= stripComments(comment.getReplies(), userId);
+        }
+        return changed;
+    }
+
+    // Notifications the user received, and those only they triggered; a group with other actors
+    // stays. Notifications from before coalescing have no actorCount and had a single actor.
+    private int removeNotifications(String userId) {
+        int removed = removeNotificationBatch(new Criteria().orOperator(
+                Criteria.where("userId").is(userId),
+                Criteria.where("actorId").is(userId).orOperator(
+                        Criteria.where("actorCount").lte(1),
+                        Criteria.where("actorCount").is(null))));
+        if (removed < batchSize) {
+            notificationCounterService.remove(userId);
+        }
+        return removed;
+    }
+
+    // Removes one batch and takes the unread ones off their receivers' counters
+    private int removeNotificationBatch(Criteria criteria) {
+        Query query = Query.query(criteria).limit(batchSize);
+        query.fields().include("userId").include("read").include("createdAt");
+        List<Notification> batch = mongoTemplate.find(query, Notification.class);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Long> unread = new HashMap<>();
+        for (Notification notification : batch) {
+            if (notificationCounterService.isCountedUnread(notification)) {
+                unread.merge(notification.getUserId(), 1L, Long::sum);
+            }
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(batch.stream().map(Notification::getId).toList())), Notification.class);
+        unread.forEach(notificationCounterService::decrement);
+        return batch.size();
+    }
+
+    // Attempts leave their challenges' stats before they are removed, and the user leaves
+    // the leaderboards once the last batch is gone
+    private int removeAttempts(String userId) {
+        Query query = Query.query(Criteria.where("userId").is(userId)).limit(batchSize);
+        query.fields().include("challengeId").include("score").include("submittedInTime");
+        List<ChallengeAttempt> batch = mongoTemplate.find(query, ChallengeAttempt.class);
+        if (batch.isEmpty()) {
+            challengeLeaderboardService.removeUser(userId);
+            return 0;
+        }
+        challengeStatsService.remove(batch);
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(batch.stream().map(ChallengeAttempt::getId).toList())), ChallengeAttempt.class);
+        if (batch.size() < batchSize) {
+            challengeLeaderboardService.removeUser(userId);
+        }
+        return batch.size();
+    }
+
+    // The picture is shared by content, so it only goes if no one else uses the same one.
+    // The hash is cleared with the next checkpoint; releasing it twice is harmless.
+    private int removeAvatar(UserDeletionJob job) {
+        if (job.getAvatarHash() == null) {
+            return 0;
+        }
+        avatarService.release(job.getUserId(), job.getAvatarHash());
+        job.setAvatarHash(null);
+        return 1;
+    }
+
+    private int removeBatch(Criteria criteria, Class<?> type) {
+        List<String> ids = idsOf(criteria, type);
+        if (!ids.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), type);
+        }
+        return ids.size();
+    }
+
+    private List<String> idsOf(Criteria criteria, Class<?> type) {
+        Query query = Query.query(criteria).limit(batchSize);
+        query.fields().include("_id");
+        return mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(type)).stream()
+                .map(document -> document.get("_id").toString())
+                .toList();
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(throttleMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopping = true;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // The current batch finishes; the job's lease runs out and it resumes on the next start
+        stopping = true;
+        worker.shutdownNow();
+    }
+}
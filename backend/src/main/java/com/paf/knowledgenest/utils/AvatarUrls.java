@@ -0,0 +1,13 @@
+package com.paf.knowledgenest.utils;
+
+// URLs clients put in <img src> for a user's profile picture
+public final class AvatarUrls {
+
+    private AvatarUrls() {
+    }
+
+    // The hash makes the URL change whenever the picture does
+    public static String urlFor(String userId, String avatarHash) {
+        return avatarHash == null ? null : "/api/user/" + userId + "/avatar?v=" + avatarHash;
+    }
+}
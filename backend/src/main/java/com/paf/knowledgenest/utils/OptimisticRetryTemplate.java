@@ -0,0 +1,62 @@
+package com.paf.knowledgenest.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a read-modify-save block when the save loses an optimistic version check.
+ * The block must re-read the document on every attempt, otherwise it keeps saving a stale copy.
+ */
+@Slf4j
+@Component
+public class OptimisticRetryTemplate {
+
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticRetryTemplate(
+            @Value("${retry.optimistic.max-attempts:10}") int maxAttempts,
+            @Value("${retry.optimistic.base-backoff-ms:5}") long baseBackoffMillis,
+            @Value("${retry.optimistic.max-backoff-ms:200}") long maxBackoffMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMillis = Math.max(1, baseBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.baseBackoffMillis, maxBackoffMillis);
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("{}: giving up after {} conflicting attempts", operation, attempt);
+                    throw e;
+                }
+                log.debug("{}: version conflict on attempt {}, retrying", operation, attempt);
+                sleep(backoffFor(attempt));
+            }
+        }
+    }
+
+    // Full jitter: a random delay in [0, min(cap, base * 2^attempt)], both ends included, so
+    // competing writers spread out
+    private long backoffFor(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.paf.knowledgenest.utils;
+
+import com.paf.knowledgenest.model.ParkedWrite;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Durable holding area for batches a background writer gave up on, so a database outage
+ * delays writes instead of dropping them. A writer parks what it could not write and later
+ * claims due batches to replay them. Claims take a lease, so a batch is replayed by one
+ * instance at a time and picked up again if that instance dies. A failed replay is pushed
+ * back with a growing delay, capped at the lease.
+ */
+@Component
+public class ParkedWriteStore {
+
+    private final MongoTemplate mongoTemplate;
+    private final long leaseMillis;
+    private final long baseDelayMillis;
+
+    public ParkedWriteStore(
+            MongoTemplate mongoTemplate,
+            @Value("${parked-writes.lease-ms:300000}") long leaseMillis,
+            @Value("${parked-writes.base-delay-ms:10000}") long baseDelayMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.leaseMillis = leaseMillis;
+        this.baseDelayMillis = baseDelayMillis;
+    }
+
+    public record Claimed<T>(String id, int attempts, List<T> items) {
+    }
+
+    // Throws when the batch could not be stored either; the caller still owns it then
+    public <T> void park(String kind, List<T> items, Exception cause) {
+        ParkedWrite parked = new ParkedWrite();
+        parked.setKind(kind);
+        parked.setItems(items.stream().map(this::toDocument).toList());
+        parked.setLastError(cause.getMessage());
+        parked.setParkedAt(LocalDateTime.now());
+        parked.setNextAttemptAt(parked.getParkedAt().plusNanos(baseDelayMillis * 1_000_000));
+        mongoTemplate.insert(parked);
+    }
+
+    // The oldest due batch of this writer, leased to the caller
+    public <T> Optional<Claimed<T>> claimDue(String kind, Class<T> type) {
+        LocalDateTime now = LocalDateTime.now();
+        ParkedWrite parked = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("kind").is(kind).and("nextAttemptAt").lte(now)),
+                new Update().set("nextAttemptAt", now.plusNanos(leaseMillis * 1_000_000)).inc("attempts", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                ParkedWrite.class);
+        if (parked == null) {
+            return Optional.empty();
+        }
+        List<T> items = parked.getItems().stream()
+                .map(document -> mongoTemplate.getConverter().read(type, document))
+                .toList();
+        return Optional.of(new Claimed<>(parked.getId(), parked.getAttempts(), items));
+    }
+
+    public void resolve(String id) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(id)), ParkedWrite.class);
+    }
+
+    public void retryLater(Claimed<?> claimed, Exception cause) {
+        long delay = Math.min(leaseMillis, baseDelayMillis << Math.min(claimed.attempts(), 20));
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(claimed.id())),
+                new Update().set("lastError", cause.getMessage())
+                        .set("nextAttemptAt", LocalDateTime.now().plusNanos(delay * 1_000_000)),
+                ParkedWrite.class);
+    }
+
+    private Document toDocument(Object item) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(item, document);
+        return document;
+    }
+}
@@ -0,0 +1,227 @@
+package com.paf.knowledgenest.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keys ordered by score, highest first (ties broken by key), with rank lookups.
+ *
+ * A treap whose nodes carry their subtree size, so put, remove, rankOf and the start of a
+ * range are all O(log n) without scanning or counting. A side map from key to score lets a
+ * key be found in the tree from its id alone.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public class RankedIndex<K extends Comparable<K>> {
+
+    public record Entry<K>(K key, long score) {
+    }
+
+    private final Map<K, Long> scores = new HashMap<>();
+    private Node<K> root;
+
+    public int size() {
+        return scores.size();
+    }
+
+    public boolean contains(K key) {
+        return scores.containsKey(key);
+    }
+
+    public Long scoreOf(K key) {
+        return scores.get(key);
+    }
+
+    public void put(K key, long score) {
+        Long previous = scores.put(key, score);
+        if (previous != null) {
+            if (previous == score) {
+                return;
+            }
+            root = delete(root, key, previous);
+        }
+        root = insert(root, new Node<>(key, score));
+    }
+
+    // Adds delta to the key's score (a missing key starts at zero) and returns the new score
+    public long add(K key, long delta) {
+        long score = scores.getOrDefault(key, 0L) + delta;
+        put(key, score);
+        return score;
+    }
+
+    public boolean remove(K key) {
+        Long previous = scores.remove(key);
+        if (previous == null) {
+            return false;
+        }
+        root = delete(root, key, previous);
+        return true;
+    }
+
+    public void clear() {
+        scores.clear();
+        root = null;
+    }
+
+    // Zero-based position of the key, or -1 when it is not indexed
+    public int rankOf(K key) {
+        Long score = scores.get(key);
+        if (score == null) {
+            return -1;
+        }
+        int rank = 0;
+        Node<K> node = root;
+        while (node != null) {
+            int cmp = compare(key, score, node);
+            if (cmp == 0) {
+                return rank + size(node.left);
+            }
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return -1;
+    }
+
+    // Up to limit entries starting at the zero-based rank offset
+    public List<Entry<K>> range(int offset, int limit) {
+        List<Entry<K>> out = new ArrayList<>(Math.max(0, Math.min(limit, size() - offset)));
+        if (offset < 0 || limit <= 0) {
+            return out;
+        }
+        collect(root, offset, limit, out);
+        return out;
+    }
+
+    // Lowest score in the index, or null when empty
+    public Entry<K> last() {
+        if (root == null) {
+            return null;
+        }
+        Node<K> node = root;
+        while (node.right != null) {
+            node = node.right;
+        }
+        return new Entry<>(node.key, node.score);
+    }
+
+    // In-order walk that skips whole subtrees lying before offset
+    private void collect(Node<K> node, int offset, int limit, List<Entry<K>> out) {
+        if (node == null || out.size() == limit) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (offset < leftSize) {
+            collect(node.left, offset, limit, out);
+        }
+        if (out.size() < limit && offset <= leftSize) {
+            out.add(new Entry<>(node.key, node.score));
+        }
+        if (out.size() < limit) {
+            collect(node.right, Math.max(0, offset - leftSize - 1), limit, out);
+        }
+    }
+
+    private Node<K> insert(Node<K> node, Node<K> fresh) {
+        if (node == null) {
+            return fresh;
+        }
+        if (fresh.priority > node.priority) {
+            Node<K>[] halves = split(node, fresh.key, fresh.score);
+            fresh.left = halves[0];
+            fresh.right = halves[1];
+            return update(fresh);
+        }
+        if (compare(fresh.key, fresh.score, node) < 0) {
+            node.left = insert(node.left, fresh);
+        } else {
+            node.right = insert(node.right, fresh);
+        }
+        return update(node);
+    }
+
+    private Node<K> delete(Node<K> node, K key, long score) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(key, score, node);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = delete(node.left, key, score);
+        } else {
+            node.right = delete(node.right, key, score);
+        }
+        return update(node);
+    }
+
+    // Everything ordered before (key, score) on the left, the rest on the right
+    @SuppressWarnings("unchecked")
+    private Node<K>[] split(Node<K> node, K key, long score) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (compare(key, score, node) <= 0) {
+            Node<K>[] halves = split(node.left, key, score);
+            node.left = halves[1];
+            halves[1] = update(node);
+            return halves;
+        }
+        Node<K>[] halves = split(node.right, key, score);
+        node.right = halves[0];
+        halves[0] = update(node);
+        return halves;
+    }
+
+    private Node<K> merge(Node<K> left, Node<K> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    // Higher scores first, then keys ascending
+    private int compare(K key, long score, Node<K> node) {
+        int cmp = Long.compare(node.score, score);
+        return cmp != 0 ? cmp : key.compareTo(node.key);
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <K> Node<K> update(Node<K> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    private static final class Node<K> {
+        final K key;
+        final long score;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        int size = 1;
+        Node<K> left;
+        Node<K> right;
+
+        Node(K key, long score) {
+            this.key = key;
+            this.score = score;
+        }
+    }
+}
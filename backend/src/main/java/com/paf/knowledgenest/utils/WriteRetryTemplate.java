@@ -0,0 +1,68 @@
+package com.paf.knowledgenest.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a background write that failed, for example while the database was unreachable,
+ * with exponential backoff between attempts. The block must be safe to run again after a
+ * partial success: it should skip what an earlier attempt already wrote.
+ */
+@Slf4j
+@Component
+public class WriteRetryTemplate {
+
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public WriteRetryTemplate(
+            @Value("${retry.write.max-attempts:4}") int maxAttempts,
+            @Value("${retry.write.base-backoff-ms:100}") long baseBackoffMillis,
+            @Value("${retry.write.max-backoff-ms:2000}") long maxBackoffMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMillis = Math.max(1, baseBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.baseBackoffMillis, maxBackoffMillis);
+    }
+
+    public void execute(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("{}: giving up after {} failed attempts: {}", operation, attempt, e.getMessage());
+                    throw e;
+                }
+                log.debug("{}: attempt {} failed, retrying: {}", operation, attempt, e.getMessage());
+                sleep(backoffFor(attempt));
+            }
+        }
+    }
+
+    // Full jitter, as in OptimisticRetryTemplate
+    public long backoffFor(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    public void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.paf.knowledgenest.service.challenges;
+
+import com.paf.knowledgenest.dto.responses.ChallengeLeaderboardEntry;
+import com.paf.knowledgenest.repository.challenges.ChallengeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+class ChallengeLeaderboardTest {
+
+    @Autowired
+    private ChallengeAttemptService attemptService;
+
+    @Autowired
+    private ChallengeRepository challengeRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private String challengeId;
+
+    @BeforeEach
+    void createChallenge() {
+        challengeId = TestChallenges.create(challengeRepository, "leaderboard-test", "alpha task", "beta task");
+    }
+
+    @AfterEach
+    void removeChallenge() {
+        TestChallenges.remove(mongoTemplate, challengeRepository, challengeId);
+    }
+
+    @Test
+    void ranksByScoreThenCompletionTime() {
+        LocalDateTime now = LocalDateTime.now();
+        submit("slow-perfect", now.minusSeconds(300), "alpha", "beta");
+        // Loaded from the index here; later submissions are applied to the board in memory
+        assertEquals(1, attemptService.getLeaderboard(challengeId, 0, 10).size());
+
+        submit("fast-perfect", now.minusSeconds(30), "alpha", "beta");
+        submit("fast-half", now.minusSeconds(10), "alpha", "wrong");
+        // A worse second attempt does not replace the best one
+        submit("fast-perfect", now.minusSeconds(5), "wrong", "wrong");
+
+        List<ChallengeLeaderboardEntry> board = attemptService.getLeaderboard(challengeId, 0, 10);
+        assertEquals(List.of("fast-perfect", "slow-perfect", "fast-half"),
+                board.stream().map(ChallengeLeaderboardEntry::getUserId).toList());
+        assertEquals(List.of(2, 2, 1), board.stream().map(ChallengeLeaderboardEntry::getScore).toList());
+
+        ChallengeLeaderboardEntry mine = attemptService.getLeaderboardRank(challengeId, "slow-perfect");
+        assertEquals(2, mine.getRank());
+        assertNull(attemptService.getLeaderboardRank(challengeId, "nobody"));
+    }
+
+    @Test
+    void unattemptedChallengesHaveEmptyBoards() {
+        assertEquals(List.of(), attemptService.getLeaderboard(challengeId, 0, 10));
+        assertEquals(List.of(), attemptService.getLeaderboard("no-such-challenge", 0, 10));
+        assertNull(attemptService.getLeaderboardRank("no-such-challenge", "nobody"));
+
+        // Not cached as empty: the first attempt shows up once there is one
+        submit("first", LocalDateTime.now().minusSeconds(60), "alpha", "beta");
+        assertEquals(List.of("first"), attemptService.getLeaderboard(challengeId, 0, 10).stream()
+                .map(ChallengeLeaderboardEntry::getUserId).toList());
+    }
+
+    private void submit(String userId, LocalDateTime startedAt, String... answers) {
+        attemptService.submitChallenge(challengeId, userId, List.of(answers), startedAt);
+    }
+}
@@ -0,0 +1,109 @@
+package com.paf.knowledgenest.service.challenges;
+
+import com.paf.knowledgenest.config.ChallengeStatsBackfill;
+import com.paf.knowledgenest.model.challenges.ChallengeAttempt;
+import com.paf.knowledgenest.repository.challenges.ChallengeRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class ChallengeStatsTest {
+
+    private static final int SUBMISSIONS = 40;
+    private static final int LEGACY_ATTEMPTS = 10;
+
+    @Autowired
+    private ChallengeAttemptService attemptService;
+
+    @Autowired
+    private ChallengeStatsBackfill backfill;
+
+    @Autowired
+    private ChallengeRepository challengeRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private String challengeId;
+
+    @BeforeEach
+    void createChallenge() {
+        challengeId = TestChallenges.create(challengeRepository, "stats-test", "alpha task", "beta task");
+    }
+
+    @AfterEach
+    void removeChallenge() {
+        TestChallenges.remove(mongoTemplate, challengeRepository, challengeId);
+    }
+
+    @Test
+    void concurrentSubmissionsAndBackfillAreCountedOnce() throws Exception {
+        // Attempts from before the stats existed: score 1, late
+        for (int i = 0; i < LEGACY_ATTEMPTS; i++) {
+            mongoTemplate.insert(new Document("challengeId", challengeId)
+                    .append("userId", "legacy-" + i)
+                    .append("score", 1)
+                    .append("submittedInTime", false), mongoTemplate.getCollectionName(ChallengeAttempt.class));
+        }
+
+        // Half answer both tasks, half only the first: scores 2 and 1, all on time
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            List<String> answers = i % 2 == 0 ? List.of("alpha", "beta") : List.of("alpha", "gamma");
+            String userId = "user-" + i;
+            futures.add(pool.submit(() -> attemptService.submitChallenge(challengeId, userId, answers, LocalDateTime.now())));
+        }
+        backfill.run(new DefaultApplicationArguments());
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        backfill.run(new DefaultApplicationArguments());
+
+        HashMap<Object, Object> report = attemptService.getChallengeStats(challengeId);
+        long total = SUBMISSIONS + LEGACY_ATTEMPTS;
+        assertEquals(total, report.get("totalAttempts"));
+        assertEquals(2, report.get("maxScore"));
+        assertEquals((SUBMISSIONS / 2 * 2 + SUBMISSIONS / 2 + LEGACY_ATTEMPTS) / (double) total, (double) report.get("averageScore"), 1e-9);
+        assertEquals(SUBMISSIONS / (double) total, (double) report.get("onTimeRatio"), 1e-9);
+        assertEquals(Map.of(1, (long) SUBMISSIONS / 2 + LEGACY_ATTEMPTS, 2, (long) SUBMISSIONS / 2), report.get("scoreHistogram"));
+    }
+
+    @Test
+    void backfillCountsStalePendingClaimsOnly() {
+        // Claimed by a submission whose upsert failed long ago, and by one still in flight
+        insertClaimed(LocalDateTime.now().minusHours(1));
+        insertClaimed(LocalDateTime.now());
+
+        backfill.run(new DefaultApplicationArguments());
+        backfill.run(new DefaultApplicationArguments());
+
+        assertEquals(1L, attemptService.getChallengeStats(challengeId).get("totalAttempts"));
+    }
+
+    private void insertClaimed(LocalDateTime claimedAt) {
+        mongoTemplate.insert(new Document("challengeId", challengeId)
+                .append("userId", "pending")
+                .append("score", 2)
+                .append("submittedInTime", true)
+                .append("statsClaimedAt", claimedAt), mongoTemplate.getCollectionName(ChallengeAttempt.class));
+    }
+}
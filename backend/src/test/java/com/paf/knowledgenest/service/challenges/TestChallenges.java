@@ -0,0 +1,34 @@
+package com.paf.knowledgenest.service.challenges;
+
+import com.paf.knowledgenest.model.challenges.Challenge;
+import com.paf.knowledgenest.model.challenges.ChallengeAttempt;
+import com.paf.knowledgenest.model.challenges.ChallengeStats;
+import com.paf.knowledgenest.repository.challenges.ChallengeRepository;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+// Active keyword-graded challenges for tests, and their removal with everything recorded about them
+public final class TestChallenges {
+
+    private TestChallenges() {
+    }
+
+    // Legacy grading: an answer is right when it contains the first word of its task
+    public static String create(ChallengeRepository challengeRepository, String title, String... tasks) {
+        Challenge challenge = new Challenge();
+        challenge.setTitle(title);
+        challenge.setTasks(List.of(tasks));
+        challenge.setTimeLimit(600);
+        challenge.setActive(true);
+        return challengeRepository.save(challenge).getId();
+    }
+
+    public static void remove(MongoTemplate mongoTemplate, ChallengeRepository challengeRepository, String challengeId) {
+        mongoTemplate.remove(Query.query(Criteria.where("challengeId").is(challengeId)), ChallengeAttempt.class);
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(challengeId)), ChallengeStats.class);
+        challengeRepository.deleteById(challengeId);
+    }
+}
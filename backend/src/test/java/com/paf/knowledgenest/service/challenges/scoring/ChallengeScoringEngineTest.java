@@ -0,0 +1,107 @@
+package com.paf.knowledgenest.service.challenges.scoring;
+
+import com.paf.knowledgenest.model.challenges.Challenge;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChallengeScoringEngineTest {
+
+    private final KeywordScoringStrategy keyword = new KeywordScoringStrategy();
+    private final ChallengeScoringEngine engine = new ChallengeScoringEngine(
+            List.of(keyword, new RegexScoringStrategy(2000, 50), new FuzzyScoringStrategy(0.8, 2000)), keyword, 10);
+
+    @Test
+    void automatonAgreesWithContains() {
+        Random random = new Random(7);
+        for (int round = 0; round < 2000; round++) {
+            List<String> keywords = new ArrayList<>();
+            for (int k = 1 + random.nextInt(4); k > 0; k--) {
+                keywords.add(randomText(random, 1 + random.nextInt(4)));
+            }
+            String text = randomText(random, random.nextInt(30));
+
+            boolean expected = keywords.stream().anyMatch(text::contains);
+            assertEquals(expected, new KeywordAutomaton(keywords).matches(text), keywords + " in " + text);
+        }
+    }
+
+    @Test
+    void legacyChallengesKeepFirstWordMatching() {
+        Challenge challenge = challenge(null, null, "Explain recursion", "Sort an array");
+        assertEquals(1, engine.grade(challenge, List.of("I would EXPLAIN it", "by hand")));
+    }
+
+    @Test
+    void strategiesGradeTheirKeys() {
+        assertEquals(2, engine.grade(challenge("KEYWORD", List.of("stack, queue", "heap"), "a", "b"),
+                List.of("Use a Queue", "a min-heap")));
+        assertEquals(1, engine.grade(challenge("regex", List.of("^o\\(n log n\\)$", "\\bdfs\\b"), "a", "b"),
+                List.of("O(n log n)", "bfs")));
+
+        AnswerMatcher fuzzy = new FuzzyScoringStrategy(0.8, 2000).compile("Depth-first search");
+        assertTrue(fuzzy.matches("depth first serch"));
+        assertFalse(fuzzy.matches("binary search"));
+
+        AnswerMatcher shortFuzzy = new FuzzyScoringStrategy(0.8, 20).compile("Depth-first search");
+        assertFalse(shortFuzzy.matches("depth first search" + " ".repeat(10)));
+    }
+
+    @Test
+    void regexGivesUpOnBacktrackingAndLongAnswers() {
+        // Takes several seconds unbounded; nested quantifiers backtrack through every split
+        AnswerMatcher nested = new RegexScoringStrategy(2000, 50).compile("^(.*a){12}$");
+        assertFalse(assertTimeoutPreemptively(Duration.ofSeconds(2), () -> nested.matches("a".repeat(30) + "!")));
+
+        AnswerMatcher word = new RegexScoringStrategy(10, 50).compile("dfs");
+        assertTrue(word.matches("use dfs"));
+        assertFalse(word.matches("I would use dfs"));
+    }
+
+    @Test
+    void recompilesWhenTheVersionChanges() {
+        Challenge challenge = challenge("KEYWORD", List.of("alpha"), "task");
+        challenge.setId("c1");
+        challenge.setVersion(1L);
+        assertEquals(1, engine.grade(challenge, List.of("alpha")));
+
+        challenge.setAnswerKeys(List.of("beta"));
+        assertEquals(1, engine.grade(challenge, List.of("alpha")), "same version is served from the cache");
+
+        challenge.setVersion(2L);
+        assertEquals(0, engine.grade(challenge, List.of("alpha")));
+    }
+
+    @Test
+    void rejectsUnusableKeys() {
+        assertThrows(IllegalArgumentException.class, () -> engine.validate(challenge("REGEX", List.of("("), "a")));
+        assertThrows(IllegalArgumentException.class, () -> engine.validate(challenge("SPELLING", List.of("x"), "a")));
+        assertThrows(IllegalArgumentException.class, () -> engine.validate(challenge("KEYWORD", List.of("x"), "a", "b")));
+        assertThrows(IllegalArgumentException.class, () -> engine.validate(challenge("FUZZY", List.of("?!"), "a")));
+    }
+
+    private static Challenge challenge(String strategy, List<String> keys, String... tasks) {
+        Challenge challenge = new Challenge();
+        challenge.setTasks(List.of(tasks));
+        challenge.setScoringStrategy(strategy);
+        challenge.setAnswerKeys(keys);
+        return challenge;
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(3)));
+        }
+        return text.toString();
+    }
+}
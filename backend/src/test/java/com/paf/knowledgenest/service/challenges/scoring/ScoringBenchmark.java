@@ -0,0 +1,105 @@
+package com.paf.knowledgenest.service.challenges.scoring;
+
+import com.paf.knowledgenest.model.challenges.Challenge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Grading throughput of a five-task attempt with ~300 character answers, per strategy, against
+// the lower-case-and-split matching attempts used before the engine. Not part of the test run:
+// after `mvn test-compile`, run main() from the IDE, or java -cp <test classpath> with this class.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoringBenchmark {
+
+    private static final String[] WORDS = {"loop", "array", "index", "recursion", "stack", "queue", "heap",
+            "pointer", "hash", "tree", "graph", "sort", "search", "binary", "node", "edge", "cache", "thread"};
+
+    @Param({"KEYWORD", "REGEX", "FUZZY"})
+    public String strategy;
+
+    private ChallengeScoringEngine engine;
+    private Challenge challenge;
+    private List<String> answers;
+
+    @Setup
+    public void setUp() {
+        KeywordScoringStrategy keyword = new KeywordScoringStrategy();
+        engine = new ChallengeScoringEngine(
+                List.of(keyword, new RegexScoringStrategy(2000, 50), new FuzzyScoringStrategy(0.8, 2000)), keyword, 100);
+
+        Random random = new Random(42);
+        List<String> tasks = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        answers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(WORDS[i] + " question number " + i);
+            answers.add(sentence(random, 50));
+            keys.add(switch (strategy) {
+                case "KEYWORD" -> String.join(",", WORDS[i], WORDS[i + 5], WORDS[i + 10], "complexity", "invariant");
+                case "REGEX" -> "\\b(" + WORDS[i] + "|" + WORDS[i + 5] + ")s?\\b.*\\b" + WORDS[i + 10] + "\\b";
+                default -> answers.get(i).substring(0, answers.get(i).length() - 12) + " extra words";
+            });
+        }
+
+        challenge = new Challenge();
+        challenge.setId("benchmark");
+        challenge.setVersion(0L);
+        challenge.setTasks(tasks);
+        challenge.setScoringStrategy(strategy);
+        challenge.setAnswerKeys(keys);
+    }
+
+    @Benchmark
+    public int grade() {
+        return engine.grade(challenge, answers);
+    }
+
+    @Benchmark
+    public int legacy() {
+        List<String> tasks = challenge.getTasks();
+        int score = 0;
+        for (int i = 0; i < Math.min(tasks.size(), answers.size()); i++) {
+            if (answers.get(i).toLowerCase().contains(tasks.get(i).toLowerCase().split(" ")[0])) {
+                score++;
+            }
+        }
+        return score;
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            String word = WORDS[random.nextInt(WORDS.length)];
+            text.append(i == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+        }
+        return text.append('.').toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ScoringBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,86 @@
+package com.paf.knowledgenest.service.skillpost;
+
+import com.paf.knowledgenest.dto.requests.skillPost.SkillPostDto;
+import com.paf.knowledgenest.model.skillpost.SkillPost;
+import com.paf.knowledgenest.repository.skillpost.SkillPostRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class SkillPostCommentContentionTest {
+
+    private static final int WRITERS = 6;
+    private static final int COMMENTS_PER_WRITER = 20;
+    private static final String OWNER_ID = "contention-test-owner";
+
+    @Autowired
+    private SkillPostService skillPostService;
+
+    @Autowired
+    private SkillPostRepository skillPostRepository;
+
+    private String postId;
+
+    @BeforeEach
+    void createPost() {
+        SkillPost post = new SkillPost();
+        post.setTitle("Contention test");
+        post.setDescription("Concurrent comment writers");
+        post.setContent("content");
+        post.setUserId(OWNER_ID);
+        post.setUserName("Owner");
+        post.setCreatedAt(LocalDateTime.now());
+        post.setUpdatedAt(LocalDateTime.now());
+        postId = skillPostRepository.save(post).getId();
+    }
+
+    @AfterEach
+    void removePost() {
+        skillPostRepository.deleteById(postId);
+    }
+
+    @Test
+    void concurrentCommentsAreNotLost() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < COMMENTS_PER_WRITER; i++) {
+                    SkillPostDto.CommentRequest request = new SkillPostDto.CommentRequest();
+                    request.setContent("writer " + writer + " comment " + i);
+                    // Commenting as the owner keeps notifications out of the picture
+                    skillPostService.addComment(postId, request, OWNER_ID, "Owner");
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        SkillPost post = skillPostRepository.findById(postId).orElseThrow();
+        assertEquals(WRITERS * COMMENTS_PER_WRITER, post.getComments().size());
+        assertEquals(WRITERS * COMMENTS_PER_WRITER, post.getVersion().intValue());
+    }
+}
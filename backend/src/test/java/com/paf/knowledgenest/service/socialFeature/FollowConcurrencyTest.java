@@ -0,0 +1,151 @@
+package com.paf.knowledgenest.service.socialFeature;
+
+import com.paf.knowledgenest.dto.requests.FollowerRequestDTO;
+import com.paf.knowledgenest.enums.CoinType;
+import com.paf.knowledgenest.model.user.User;
+import com.paf.knowledgenest.repository.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class FollowConcurrencyTest {
+
+    private static final int FOLLOWERS = 24;
+    private static final int TOGGLES = 30;
+
+    @Autowired
+    private SocialService socialService;
+
+    @Autowired
+    private FollowGraphService followGraphService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<String> userIds = new ArrayList<>();
+    private String targetId;
+
+    @BeforeEach
+    void createUsers() {
+        targetId = createUser("follow-target");
+        for (int i = 0; i < FOLLOWERS; i++) {
+            createUser("follower-" + i);
+        }
+    }
+
+    @AfterEach
+    void removeUsers() {
+        userIds.forEach(followGraphService::removeUser);
+        userRepository.deleteAllById(userIds);
+        userIds.clear();
+    }
+
+    @Test
+    void concurrentFollowsAreNotLost() throws Exception {
+        List<String> followerIds = userIds.subList(1, userIds.size());
+        runConcurrently(followerIds.size(), i -> {
+            // Every follower sends its follow twice; the second one must be a no-op
+            socialService.followUser(new FollowerRequestDTO(followerIds.get(i), targetId));
+            socialService.followUser(new FollowerRequestDTO(followerIds.get(i), targetId));
+        });
+
+        User target = userRepository.findById(targetId).orElseThrow();
+        assertEquals(FOLLOWERS, target.getFollowerCount());
+        assertEquals(new HashSet<>(followerIds), new HashSet<>(followGraphService.followerPage(targetId, 0, FOLLOWERS * 2)));
+        // Coins are written by the ledger writer shortly after the follow
+        assertEquals(FOLLOWERS * CoinType.FOLLOW.getPoints(), awaitCoins(targetId, FOLLOWERS * CoinType.FOLLOW.getPoints()));
+
+        for (String followerId : followerIds) {
+            User follower = userRepository.findById(followerId).orElseThrow();
+            assertEquals(1, follower.getFollowingCount());
+            assertEquals(List.of(targetId), followGraphService.followeeIds(followerId));
+        }
+    }
+
+    @Test
+    void concurrentFollowUnfollowKeepsBothSidesInStep() throws Exception {
+        List<String> followerIds = userIds.subList(1, userIds.size());
+        runConcurrently(followerIds.size(), i -> {
+            for (int t = 0; t < TOGGLES; t++) {
+                FollowerRequestDTO request = new FollowerRequestDTO(followerIds.get(i), targetId);
+                if (t % 2 == 0) {
+                    socialService.followUser(request);
+                } else {
+                    socialService.unfollowUser(request);
+                }
+            }
+        });
+
+        // An even number of toggles ends unfollowed on both sides
+        User target = userRepository.findById(targetId).orElseThrow();
+        assertEquals(0, target.getFollowerCount());
+        assertTrue(followGraphService.followerPage(targetId, 0, FOLLOWERS * 2).isEmpty());
+        for (String followerId : followerIds) {
+            User follower = userRepository.findById(followerId).orElseThrow();
+            assertEquals(0, follower.getFollowingCount());
+            assertFalse(followGraphService.isFollowing(followerId, targetId));
+        }
+    }
+
+    private int awaitCoins(String userId, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        int coins;
+        do {
+            coins = userRepository.findById(userId).orElseThrow().getUserCoins();
+            if (coins == expected) {
+                break;
+            }
+            Thread.sleep(50);
+        } while (System.currentTimeMillis() < deadline);
+        return coins;
+    }
+
+    private String createUser(String name) {
+        User user = new User(name, name, name + "@follow-test.local", "secret");
+        String id = userRepository.save(user).getId();
+        userIds.add(id);
+        return id;
+    }
+
+    private void runConcurrently(int workers, IndexedTask task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int w = 0; w < workers; w++) {
+            int worker = w;
+            futures.add(pool.submit(() -> {
+                start.await();
+                task.run(worker);
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface IndexedTask {
+        void run(int index);
+    }
+}
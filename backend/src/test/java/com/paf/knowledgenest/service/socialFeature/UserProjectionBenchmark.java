@@ -0,0 +1,174 @@
+package com.paf.knowledgenest.service.socialFeature;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.paf.knowledgenest.KnowledgeNestApplication;
+import com.paf.knowledgenest.dto.responses.UserSummary;
+import com.paf.knowledgenest.model.user.User;
+import com.paf.knowledgenest.repository.user.UserRepository;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Following list of a user with a large graph, read as full entities (what the endpoint used
+// to do) and through UserRepository.findByIdIn, which the endpoint uses now. The Mongo payload
+// is measured from the driver's own commands and replies, so it is what the repository really
+// sends. Followees carry the fields older documents still have on disk: an embedded Base64
+// picture and follower/following lists. Needs a reachable Mongo and writes 1000 users, so it is
+// not part of the test run: after `mvn test-compile`, run main() from the IDE, or
+// java -cp <test classpath> with this class.
+public class UserProjectionBenchmark {
+
+    private static final int FOLLOWEES = 1000;
+    private static final int LEGACY_LIST_SIZE = 500;
+    private static final int LEGACY_PICTURE_CHARS = 40_000;
+    private static final int ROUNDS = 15;
+
+    // Reply sizes and returned field names of the users queries since the last reset
+    private static final class UsersQueries implements CommandListener {
+        private final AtomicLong replyBytes = new AtomicLong();
+        private final Set<String> fields = new TreeSet<>();
+        private volatile BsonDocument lastProjection;
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if ("find".equals(event.getCommandName()) && "users".equals(event.getCommand().getString("find").getValue())) {
+                lastProjection = event.getCommand().getDocument("projection", new BsonDocument());
+            }
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            BsonDocument cursor = event.getResponse().getDocument("cursor", null);
+            if (cursor == null || !cursor.getString("ns").getValue().endsWith(".users")) {
+                return;
+            }
+            replyBytes.addAndGet(event.getResponse().toJson().length());
+            String batch = cursor.containsKey("firstBatch") ? "firstBatch" : "nextBatch";
+            synchronized (fields) {
+                for (BsonValue document : cursor.getArray(batch)) {
+                    fields.addAll(document.asDocument().keySet());
+                }
+            }
+        }
+
+        void reset() {
+            replyBytes.set(0);
+            synchronized (fields) {
+                fields.clear();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        UsersQueries queries = new UsersQueries();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(KnowledgeNestApplication.class)
+                .properties("server.port=0")
+                .initializers(ctx -> ctx.getBeanFactory().registerSingleton("usersQueries",
+                        (MongoClientSettingsBuilderCustomizer) settings -> settings.addCommandListener(queries)))
+                .run(args);
+        try {
+            run(context, queries);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void run(ConfigurableApplicationContext context, UsersQueries queries) throws Exception {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        FollowGraphService followGraphService = context.getBean(FollowGraphService.class);
+        MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        List<String> userIds = new ArrayList<>();
+        String ownerId = userRepository.save(new User("owner", "owner", "owner@projection-benchmark.local", "secret")).getId();
+        userIds.add(ownerId);
+        try {
+            List<User> followees = new ArrayList<>(FOLLOWEES);
+            for (int i = 0; i < FOLLOWEES; i++) {
+                followees.add(new User("followee-" + i, "followee-" + i, "followee-" + i + "@projection-benchmark.local",
+                        "$2a$10$abcdefghijklmnopqrstuvABCDEFGHIJKLMNOPQRSTUVWXYZ01234"));
+            }
+            for (User followee : userRepository.saveAll(followees)) {
+                userIds.add(followee.getId());
+                followGraphService.follow(ownerId, followee.getId());
+            }
+
+            List<String> legacyList = new ArrayList<>(LEGACY_LIST_SIZE);
+            for (int i = 0; i < LEGACY_LIST_SIZE; i++) {
+                legacyList.add(new ObjectId().toHexString());
+            }
+            char[] picture = new char[LEGACY_PICTURE_CHARS];
+            Arrays.fill(picture, 'A');
+            mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("_id").in(userIds.subList(1, userIds.size()))),
+                    new Update().set("profilePic", new String(picture)).set("followers", legacyList).set("following", legacyList),
+                    User.class);
+
+            List<String> ids = followGraphService.followeeIds(ownerId);
+
+            queries.reset();
+            List<User> entities = userRepository.findAllById(ids);
+            long wireFull = queries.replyBytes.get();
+            Set<String> fullFields = new TreeSet<>(queries.fields);
+
+            queries.reset();
+            List<UserSummary> summaries = userRepository.findByIdIn(ids);
+            long wireSummary = queries.replyBytes.get();
+            Set<String> summaryFields = new TreeSet<>(queries.fields);
+            BsonDocument summaryProjection = queries.lastProjection;
+
+            long jsonFull = objectMapper.writeValueAsBytes(entities).length;
+            long jsonSummary = objectMapper.writeValueAsBytes(summaries).length;
+            long fullMicros = medianMicros(() -> userRepository.findAllById(ids));
+            long summaryMicros = medianMicros(() -> userRepository.findByIdIn(ids));
+
+            System.out.printf("following list of %d users:%n", summaries.size());
+            System.out.printf("  findByIdIn projection %s%n", summaryProjection == null ? "none" : summaryProjection.toJson());
+            System.out.printf("  fields returned  full %s%n", fullFields);
+            System.out.printf("                   summary %s%n", summaryFields);
+            System.out.printf("  mongo payload    full %,d chars, summary %,d chars (%.1fx)%n",
+                    wireFull, wireSummary, wireFull / (double) Math.max(1, wireSummary));
+            System.out.printf("  response body    full %,d bytes, summary %,d bytes%n", jsonFull, jsonSummary);
+            System.out.printf("  median latency   full %,d us, summary %,d us%n", fullMicros, summaryMicros);
+
+            // The timings depend on the machine; what the projection reads must not
+            summaryFields.removeAll(Set.of("_id", "name", "username", "email", "avatarHash"));
+            if (!summaryFields.isEmpty()) {
+                throw new IllegalStateException("findByIdIn read fields outside UserSummary: " + summaryFields);
+            }
+        } finally {
+            followGraphService.removeUser(ownerId);
+            userRepository.deleteAllById(userIds);
+        }
+    }
+
+    private static long medianMicros(Supplier<?> read) {
+        read.get();
+        long[] samples = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            read.get();
+            samples[i] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(samples);
+        return samples[ROUNDS / 2];
+    }
+}
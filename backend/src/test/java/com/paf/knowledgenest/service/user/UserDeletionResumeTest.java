@@ -0,0 +1,132 @@
+package com.paf.knowledgenest.service.user;
+
+import com.paf.knowledgenest.model.notification.Notification;
+import com.paf.knowledgenest.model.user.User;
+import com.paf.knowledgenest.model.user.UserDeletionJob;
+import com.paf.knowledgenest.model.user.UserDeletionJob.Status;
+import com.paf.knowledgenest.model.user.UserDeletionJob.Step;
+import com.paf.knowledgenest.repository.challenges.ChallengeRepository;
+import com.paf.knowledgenest.repository.user.UserRepository;
+import com.paf.knowledgenest.service.challenges.ChallengeAttemptService;
+import com.paf.knowledgenest.service.challenges.TestChallenges;
+import com.paf.knowledgenest.service.notification.NotificationCounterService;
+import com.paf.knowledgenest.service.socialFeature.FollowGraphService;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Small batches so every step takes several; the scheduled poll stays out of the way
+@SpringBootTest(properties = {
+        "users.deletion.batch-size=2",
+        "users.deletion.throttle-ms=0",
+        "users.deletion.poll-initial-delay-ms=3600000"})
+class UserDeletionResumeTest {
+
+    @Autowired
+    private UserDeletionService deletionService;
+
+    @Autowired
+    private FollowGraphService followGraphService;
+
+    @Autowired
+    private NotificationCounterService notificationCounterService;
+
+    @Autowired
+    private ChallengeAttemptService attemptService;
+
+    @Autowired
+    private ChallengeRepository challengeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private String deletedId;
+    private String friendId;
+    private String challengeId;
+
+    @BeforeEach
+    void createUsers() {
+        deletedId = userRepository.save(new User("deleted-user", "deleted-user", "deleted-user@test", "secret")).getId();
+        friendId = userRepository.save(new User("friend-user", "friend-user", "friend-user@test", "secret")).getId();
+        followGraphService.follow(deletedId, friendId);
+        followGraphService.follow(friendId, deletedId);
+
+        challengeId = TestChallenges.create(challengeRepository, "deletion-test", "alpha task");
+    }
+
+    @AfterEach
+    void removeUsers() {
+        List<String> userIds = List.of(deletedId, friendId);
+        userIds.forEach(followGraphService::removeUser);
+        userIds.forEach(notificationCounterService::remove);
+        mongoTemplate.remove(Query.query(Criteria.where("userId").in(userIds)), Notification.class);
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(deletedId)), UserDeletionJob.class);
+        TestChallenges.remove(mongoTemplate, challengeRepository, challengeId);
+        userRepository.deleteAllById(userIds);
+    }
+
+    @Test
+    void resumedJobRemovesAndSubtractsEverythingOnce() {
+        // Three unread notifications only the deleted user triggered, two of them from before
+        // coalescing without an actorCount, and a group that has other actors too
+        insertNotification(null);
+        insertNotification(null);
+        insertNotification(1);
+        insertNotification(3);
+        assertEquals(4, notificationCounterService.getUnreadCount(friendId));
+
+        for (int i = 0; i < 3; i++) {
+            attemptService.submitChallenge(challengeId, deletedId, List.of("alpha"), LocalDateTime.now());
+        }
+        attemptService.submitChallenge(challengeId, friendId, List.of("alpha"), LocalDateTime.now());
+
+        // A worker that dies after these batches and before saving its progress
+        UserDeletionJob job = new UserDeletionJob(deletedId);
+        mongoTemplate.insert(job);
+        for (Step step : List.of(Step.NOTIFICATIONS, Step.FOLLOWS, Step.CHALLENGE_ATTEMPTS)) {
+            job.setStep(step);
+            deletionService.runBatch(job);
+        }
+
+        // The next worker starts over from the saved job
+        deletionService.run(mongoTemplate.findById(deletedId, UserDeletionJob.class));
+
+        assertEquals(Status.COMPLETED, mongoTemplate.findById(deletedId, UserDeletionJob.class).getStatus());
+        List<Notification> left = mongoTemplate.find(
+                Query.query(Criteria.where("actorId").is(deletedId)), Notification.class);
+        assertEquals(List.of(3), left.stream().map(Notification::getActorCount).toList());
+        assertEquals(1, notificationCounterService.getUnreadCount(friendId));
+
+        User friend = userRepository.findById(friendId).orElseThrow();
+        assertEquals(0, friend.getFollowerCount());
+        assertEquals(0, friend.getFollowingCount());
+
+        assertEquals(1L, attemptService.getChallengeStats(challengeId).get("totalAttempts"));
+    }
+
+    private void insertNotification(Integer actorCount) {
+        Document notification = new Document("userId", friendId)
+                .append("type", "LIKE")
+                .append("actorId", deletedId)
+                .append("read", false)
+                .append("createdAt", LocalDateTime.now());
+        if (actorCount != null) {
+            notification.append("actorCount", actorCount);
+        }
+        mongoTemplate.insert(notification, mongoTemplate.getCollectionName(Notification.class));
+    }
+}
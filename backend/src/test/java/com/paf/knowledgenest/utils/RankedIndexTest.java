@@ -0,0 +1,56 @@
+package com.paf.knowledgenest.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RankedIndexTest {
+
+    private static final Comparator<RankedIndex.Entry<String>> ORDER =
+            Comparator.<RankedIndex.Entry<String>>comparingLong(RankedIndex.Entry::score).reversed()
+                    .thenComparing(RankedIndex.Entry::key);
+
+    @Test
+    void matchesASortedListUnderRandomUpdates() {
+        Random random = new Random(42);
+        RankedIndex<String> index = new RankedIndex<>();
+        Map<String, Long> expected = new HashMap<>();
+
+        for (int step = 0; step < 5000; step++) {
+            String key = "user-" + random.nextInt(300);
+            int op = random.nextInt(10);
+            if (op == 0) {
+                index.remove(key);
+                expected.remove(key);
+            } else if (op < 4) {
+                long score = random.nextInt(50);
+                index.put(key, score);
+                expected.put(key, score);
+            } else {
+                long delta = random.nextInt(20);
+                index.add(key, delta);
+                expected.merge(key, delta, Long::sum);
+            }
+        }
+
+        List<RankedIndex.Entry<String>> sorted = new ArrayList<>();
+        expected.forEach((key, score) -> sorted.add(new RankedIndex.Entry<>(key, score)));
+        sorted.sort(ORDER);
+
+        assertEquals(sorted.size(), index.size());
+        assertEquals(sorted, index.range(0, sorted.size()));
+        for (int rank = 0; rank < sorted.size(); rank++) {
+            assertEquals(rank, index.rankOf(sorted.get(rank).key()));
+        }
+        assertEquals(sorted.subList(37, 47), index.range(37, 10));
+        assertEquals(sorted.get(sorted.size() - 1), index.last());
+        assertEquals(-1, index.rankOf("missing"));
+    }
+}
@@ -161,30 +161,66 @@ export const NotificationProvider: React.FC<{ children: ReactNode }> = ({ childr
     }
   }, [currentUser]);
   
-  // Set up polling for new notifications
+  // Listen for new notifications and unread counts pushed by the server
   useEffect(() => {
     if (!currentUser) return;
     
-    const checkForNewNotifications = async () => {
+    let source: EventSource | null = null;
+    let reconnectTimer: ReturnType<typeof setTimeout> | undefined;
+    let lastEventId: string | null = null;
+    let closed = false;
+    
+    const connect = async () => {
       try {
-        const countData = await NotificationService.getUnreadCount();
-        
-        if (countData.unreadCount > unreadCount) {
-          // Only fetch full notifications if there are new ones
-          fetchNotifications().then();
-        } else {
-          console.log('No new notifications found');
-        }
+        const token = await NotificationService.getStreamToken();
+        if (closed) return;
+        source = NotificationService.openStream(token, lastEventId);
       } catch (err) {
-        console.error('Error checking for new notifications:', err);
+        console.error('Error opening notification stream:', err);
+        reconnectTimer = setTimeout(connect, 10000);
+        return;
       }
+      
+      source.addEventListener('notification', (event) => {
+        const message = event as MessageEvent;
+        lastEventId = message.lastEventId || lastEventId;
+        try {
+          const notification: Notification = JSON.parse(message.data);
+          // Coalesced notifications arrive again when they change; replace them by id
+          setNotifications(prev => [notification, ...prev.filter(n => n.id !== notification.id)]);
+        } catch (err) {
+          console.warn('Invalid notification event:', message.data);
+        }
+      });
+      
+      source.addEventListener('unread-count', (event) => {
+        try {
+          const countData = JSON.parse((event as MessageEvent).data);
+          if (typeof countData.unreadCount === 'number') {
+            setUnreadCount(countData.unreadCount);
+          }
+        } catch (err) {
+          console.warn('Invalid unread count event:', (event as MessageEvent).data);
+        }
+      });
+      
+      source.onerror = () => {
+        // The browser retries dropped connections itself; once it gives up (e.g. the
+        // stream token expired) open a new stream with a fresh token
+        if (source?.readyState === EventSource.CLOSED && !closed) {
+          source = null;
+          reconnectTimer = setTimeout(connect, 5000);
+        }
+      };
     };
     
-    // Check for new notifications immediately and then every 3 min
-    checkForNewNotifications().then();
-    const intervalId = setInterval(checkForNewNotifications, (60000 * 3));
+    connect().then();
     
-    return () => clearInterval(intervalId);
+    return () => {
+      closed = true;
+      clearTimeout(reconnectTimer);
+      source?.close();
+    };
   }, [currentUser]);
   
   const value = {
@@ -4,7 +4,7 @@ import { Button } from "@/components/ui/button";
 import { Input } from "@/components/ui/input";
 import { Camera, Trash2, Shield, Users, AlertTriangle } from "lucide-react";
 import toast from "react-hot-toast";
-import api from "@/utils/axiosInstance.ts";
+import api, { avatarUrl } from "@/utils/axiosInstance.ts";
 import {useAuth} from "@/contexts/auth-context.tsx";
 
 export default function AdminProfilePage() {
@@ -61,7 +61,7 @@ export default function AdminProfilePage() {
           <div className="bg-white rounded-2xl shadow p-6 flex flex-col items-center lg:col-span-1">
             <div className="w-32 h-32 rounded-full bg-gray-200 mb-4 overflow-hidden">
               {currentUser?.profilePic ? (
-                <img src={currentUser?.profilePic} alt="Profile" className="w-full h-full object-cover" />
+                <img src={avatarUrl(currentUser?.profilePic, 256)} alt="Profile" className="w-full h-full object-cover" />
               ) : (
                 <span className="flex items-center justify-center h-full text-gray-500 text-sm">No Image</span>
               )}
@@ -27,9 +27,14 @@ import {UserSidebar} from "@/components/sidebar/UserSidebar.tsx";
 type SkillCategory = 'coding' | 'cooking' | 'diy';
 type DifficultyLevel = 'beginner' | 'intermediate' | 'pro';
 
+const PAGE_SIZE = 30;
+
 export default function ChallengeListPage() {
     const [challenges, setChallenges] = useState<Challenge[]>([]);
     const [loading, setLoading] = useState(true);
+    const [loadingMore, setLoadingMore] = useState(false);
+    const [page, setPage] = useState(0);
+    const [hasNext, setHasNext] = useState(false);
     const [filter, setFilter] = useState<'all' | SkillCategory>('all');
     const [difficultyFilter, setDifficultyFilter] = useState<DifficultyLevel | 'all'>('all');
     const [searchQuery, setSearchQuery] = useState('');
@@ -40,24 +45,32 @@ export default function ChallengeListPage() {
     const navigate = useNavigate();
 
     useEffect(() => {
-        const fetchChallenges = async () => {
-            try {
-                let response;
-                if (filter === 'all') {
-                    response = await api.get('/api/challenges');
-                } else {
-                    response = await api.get(`/api/challenges/category/${filter}`);
-                }
-                setChallenges(response.data);
-            } catch (error) {
-                console.error('Error fetching challenges:', error);
-            } finally {
-                setLoading(false);
-            }
-        };
-
-        fetchChallenges();
-    }, [filter]);
+        fetchChallenges(0);
+    }, [filter, difficultyFilter]);
+
+    // Page 0 replaces the list; later pages are appended by "Load more"
+    const fetchChallenges = async (pageToLoad: number) => {
+        if (pageToLoad > 0) setLoadingMore(true);
+        try {
+            const response = await api.get('/api/challenges/catalog', {
+                params: {
+                    category: filter === 'all' ? undefined : filter,
+                    difficulty: difficultyFilter === 'all' ? undefined : difficultyFilter,
+                    page: pageToLoad,
+                    size: PAGE_SIZE,
+                },
+            });
+            const items: Challenge[] = response.data.items;
+            setChallenges(prev => pageToLoad === 0 ? items : [...prev, ...items]);
+            setPage(response.data.page);
+            setHasNext(response.data.hasNext);
+        } catch (error) {
+            console.error('Error fetching challenges:', error);
+        } finally {
+            setLoading(false);
+            setLoadingMore(false);
+        }
+    };
 
     const getCategoryIcon = (category: string) => {
         switch (category.toLowerCase()) {
@@ -418,6 +431,18 @@ export default function ChallengeListPage() {
                     ))}
                 </div>
 
+                {hasNext && (
+                    <div className="flex justify-center mt-8">
+                        <Button
+                            variant="outline"
+                            onClick={() => fetchChallenges(page + 1)}
+                            disabled={loadingMore}
+                        >
+                            {loadingMore ? 'Loading...' : 'Load more'}
+                        </Button>
+                    </div>
+                )}
+
                 {/* Empty State */}
                 {filteredChallenges.length === 0 && (
                     <div className="text-center py-12">
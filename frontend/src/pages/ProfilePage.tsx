@@ -9,7 +9,7 @@ import {
 } from "lucide-react";
 import toast from "react-hot-toast";
 import { useAuth } from "@/contexts/auth-context.tsx";
-import api from "@/utils/axiosInstance.ts";
+import api, { avatarUrl } from "@/utils/axiosInstance.ts";
 import {
   Dialog,
   DialogContent,
@@ -196,7 +196,7 @@ export default function ProfilePage() {
                       <div className="relative mb-4">
                         <Avatar className="w-32 h-32 border-4 border-white shadow-md">
                           <AvatarImage
-                              src={currentUser.profilePic ? `${currentUser.profilePic}?${Date.now()}` : '/default-user.jpg'}
+                              src={avatarUrl(currentUser.profilePic, 256) ?? '/default-user.jpg'}
                               alt="Profile"
                           />
                           <AvatarFallback className="bg-neutral-100">
@@ -248,7 +248,7 @@ export default function ProfilePage() {
 
                           className=" w-full  items-center h-10 py-3 border-blue-800 hover:bg-blue-50"
                       >
-                        <span className="text-lg font-semibold text-neutral-800">{followData.followers.length}</span>
+                        <span className="text-lg font-semibold text-neutral-800">{followData.followerCount ?? followData.followers.length}</span>
                         <span className="text-sm text-neutral-500">Followers</span>
                       </Button>
                       <Button
@@ -256,7 +256,7 @@ export default function ProfilePage() {
                           variant="outline"
                           className="w-full items-center h-10 py-3 border-blue-800 hover:bg-blue-50"
                       >
-                        <span className="text-lg font-semibold text-neutral-800">{followData.followings.length}</span>
+                        <span className="text-lg font-semibold text-neutral-800">{followData.followingCount ?? followData.followings.length}</span>
                         <span className="text-sm text-neutral-500">Following</span>
                       </Button>
                     </div>
@@ -380,7 +380,7 @@ export default function ProfilePage() {
         <Dialog open={isFollowersOpen} onOpenChange={setIsFollowersOpen}>
           <DialogContent className="sm:max-w-[425px] border border-neutral-200">
             <DialogHeader className="border-b border-neutral-200 pb-4">
-              <DialogTitle className="text-neutral-800">Followers ({followData.followers.length})</DialogTitle>
+              <DialogTitle className="text-neutral-800">Followers ({followData.followerCount ?? followData.followers.length})</DialogTitle>
             </DialogHeader>
             {isLoading ? (
                 <div className="flex justify-center py-8">
@@ -394,7 +394,7 @@ export default function ProfilePage() {
                       <div key={follower.userId} className="flex items-center justify-between gap-4 p-2 hover:bg-neutral-50 rounded">
                         <div className="flex items-center gap-3">
                           <Avatar className="h-10 w-10">
-                            <AvatarImage src={follower.profilePic || undefined} />
+                            <AvatarImage src={avatarUrl(follower.profilePic, 64)} />
                             <AvatarFallback className="bg-neutral-100">
                               <User className="w-5 h-5 text-neutral-400" />
                             </AvatarFallback>
@@ -434,7 +434,7 @@ export default function ProfilePage() {
         <Dialog open={isFollowingOpen} onOpenChange={setIsFollowingOpen}>
           <DialogContent className="sm:max-w-[425px] border border-neutral-200">
             <DialogHeader className="border-b border-neutral-200 pb-4">
-              <DialogTitle className="text-neutral-800">Following ({followData.followings.length})</DialogTitle>
+              <DialogTitle className="text-neutral-800">Following ({followData.followingCount ?? followData.followings.length})</DialogTitle>
             </DialogHeader>
             {isLoading ? (
                 <div className="flex justify-center py-8">
@@ -448,7 +448,7 @@ export default function ProfilePage() {
                       <div key={followed.userId} className="flex items-center justify-between gap-4 p-2 hover:bg-neutral-50 rounded">
                         <div className="flex items-center gap-3">
                           <Avatar className="h-10 w-10">
-                            <AvatarImage src={followed.profilePic || undefined} />
+                            <AvatarImage src={avatarUrl(followed.profilePic, 64)} />
                             <AvatarFallback className="bg-neutral-100">
                               <User className="w-5 h-5 text-neutral-400" />
                             </AvatarFallback>
@@ -80,6 +80,22 @@ export class NotificationService {
     }
   }
 
+  // Short-lived token for the notification stream; EventSource cannot send the Authorization header
+  static async getStreamToken(): Promise<string> {
+    const response = await axiosInstance.post(`${API_URL}/notifications/stream/token`);
+    return response.data.result.token;
+  }
+
+  // Opens the push channel for new notifications and unread counts. lastEventId resumes a
+  // stream that was closed, so nothing created in between is missed.
+  static openStream(token: string, lastEventId?: string | null): EventSource {
+    const params = new URLSearchParams({ token });
+    if (lastEventId) {
+      params.set('lastEventId', lastEventId);
+    }
+    return new EventSource(`${API_URL}/notifications/stream?${params.toString()}`);
+  }
+
   static async markAsRead(id: string): Promise<Notification> {
     console.log(`Marking notification as read: ${id}`);
     try {
@@ -24,7 +24,9 @@ export const getUserCoinsByUser= async  (userId: string) => {
 
 export interface FollowerFollowing {
     followers: UserResponse[],
-    followings: UserResponse[]
+    followings: UserResponse[],
+    followerCount?: number,
+    followingCount?: number
 }
 
 export interface UserResponse {
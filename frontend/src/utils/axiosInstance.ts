@@ -33,4 +33,9 @@ api.interceptors.response.use(
     }
 );
 
+// Avatar paths from the API are relative to the backend; size picks a resized variant
+// (32, 64, 128 or 256 px) close to the size it is displayed at
+export const avatarUrl = (path?: string | null, size?: number) =>
+    path ? `${api.defaults.baseURL}${path}${size ? `&size=${size}` : ""}` : undefined;
+
 export default api;